@@ -0,0 +1,292 @@
+package com.example.NextSteps;
+
+import com.example.NextSteps.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+//Boots the whole application once on platform threads and once on virtual threads, in front of a stub Ollama
+//that answers every generation after a fixed delay, and drives generate and read requests at each concurrency level.
+//Needs the docker-compose Postgres (or SPRING_DATASOURCE_URL). Tuned through the environment:
+//LOAD_LEVELS (100,1000,10000), LOAD_REQUESTS_PER_CLIENT (3), LOAD_LLM_LATENCY_MS (2000).
+//The jmh.include argument filters runs by "<mode>.<scenario>", e.g. -Djmh.include=virtual.read
+//On the virtual thread run, pinned threads are caught with JFR and the sites that pinned are printed at the end.
+public class ThreadingLoadBenchmark {
+
+    private static final UUID USER_ID = UUID.fromString("c2eebc99-9c0b-4ef8-bb6d-6bb9bd380a33");
+    private static final String EMAIL = "test@test.com";
+
+    private record Result(String mode, String scenario, int concurrency, int requests, int errors,
+                          double throughput, double p50Ms, double p99Ms) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Pattern include = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        int[] levels = Arrays.stream(setting("LOAD_LEVELS", "100,1000,10000").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        int requestsPerClient = Integer.parseInt(setting("LOAD_REQUESTS_PER_CLIENT", "3"));
+        Duration llmLatency = Duration.ofMillis(Long.parseLong(setting("LOAD_LLM_LATENCY_MS", "2000")));
+
+        DisposableServer stub = stubOllama(llmLatency);
+        List<Result> results = new ArrayList<>();
+        Map<String, Integer> pinnedSites = new ConcurrentHashMap<>();
+        try {
+            for (String mode : List.of("platform", "virtual")) {
+                if (!include.matcher(mode + ".generate").find() && !include.matcher(mode + ".read").find()) {
+                    continue;
+                }
+                results.addAll(runMode(mode, stub, include, levels, requestsPerClient, pinnedSites));
+            }
+        } finally {
+            stub.disposeNow();
+        }
+
+        System.out.printf("%n%-9s %-9s %8s %9s %7s %10s %9s %9s%n",
+                "mode", "scenario", "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Result result : results) {
+            System.out.printf("%-9s %-9s %8d %9d %7d %10.1f %9.1f %9.1f%n",
+                    result.mode(), result.scenario(), result.concurrency(), result.requests(), result.errors(),
+                    result.throughput(), result.p50Ms(), result.p99Ms());
+        }
+
+        if (!pinnedSites.isEmpty()) {
+            System.out.printf("%nVirtual threads pinned for over 20ms at:%n");
+            pinnedSites.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(10)
+                    .forEach(site -> System.out.printf("%6d  %s%n", site.getValue(), site.getKey()));
+        }
+    }
+
+    private static List<Result> runMode(String mode, DisposableServer stub, Pattern include, int[] levels,
+                                        int requestsPerClient, Map<String, Integer> pinnedSites) throws Exception {
+        boolean virtual = mode.equals("virtual");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.threads.virtual.enabled", virtual);
+        properties.put("ai.ollama.base-urls", "http://localhost:" + stub.port());
+        // Every generate must reach the stub, a cache hit would measure the cache instead of the thread model
+        properties.put("ai.cache.enabled", false);
+        // Likewise the similarity index, every client sends the same profile and the stub does not serve /api/embed
+        properties.put("ai.similarity.enabled", false);
+        properties.put("ai.generation.mode", "SINGLE");
+        // Every client uses one token, so the per-user limit would answer 429 to nearly all of them. The fair queue and
+        // bulkhead are raised past the highest load level so they shed nothing either, only threads are being compared.
+        properties.put("ai.rate-limit.enabled", false);
+        properties.put("ai.fairness.max-concurrency", 20000);
+        properties.put("ai.fairness.max-queued", 100000);
+        properties.put("ai.ollama.bulkhead.max-concurrent-calls", 20000);
+        // The same connection limits for both runs, only the threads that serve them differ
+        properties.put("server.tomcat.max-connections", 20000);
+        properties.put("server.tomcat.accept-count", 1000);
+
+        RecordingStream pinned = null;
+        if (virtual) {
+            pinned = new RecordingStream();
+            pinned.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20)).withStackTrace();
+            pinned.onEvent("jdk.VirtualThreadPinned", event -> pinnedSites.merge(pinnedSite(event.getStackTrace()), 1, Integer::sum));
+            pinned.startAsync();
+        }
+
+        List<Result> results = new ArrayList<>();
+        // Passed as command line arguments so they win over application.yaml
+        String[] arguments = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(NextStepsApplication.class)
+                .run(arguments)) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String token = context.getBean(JwtUtil.class).generateToken(USER_ID, EMAIL);
+            String profile = context.getBean(ObjectMapper.class).writeValueAsString(Map.of(
+                    "userId", USER_ID,
+                    "goalTitle", "Learn DevOps",
+                    "skills", List.of("Linux", "Git", "Basic Scripting"),
+                    "interests", List.of("CI/CD", "Docker", "Kubernetes")));
+
+            Map<String, Supplier<HttpRequest>> scenarios = Map.of(
+                    "generate", () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/roadmaps/generate"))
+                            .header("Authorization", "Bearer " + token)
+                            .header("Content-Type", "application/json")
+                            .timeout(Duration.ofMinutes(10))
+                            .POST(HttpRequest.BodyPublishers.ofString(profile))
+                            .build(),
+                    "read", () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/roadmaps/user/" + USER_ID + "/summaries?limit=20"))
+                            .header("Authorization", "Bearer " + token)
+                            .timeout(Duration.ofMinutes(10))
+                            .GET()
+                            .build());
+
+            try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientThreads)
+                        .connectTimeout(Duration.ofSeconds(30))
+                        .build();
+
+                for (String scenario : List.of("generate", "read")) {
+                    if (!include.matcher(mode + "." + scenario).find()) {
+                        continue;
+                    }
+                    // Warms up the JIT, the connection pools and Hibernate's query plans before anything is measured
+                    drive(client, scenarios.get(scenario), mode, scenario, 10, requestsPerClient);
+                    for (int level : levels) {
+                        Result result = drive(client, scenarios.get(scenario), mode, scenario, level, requestsPerClient);
+                        System.out.printf("%s %s x%d: %.1f req/s, p99 %.1f ms, %d errors%n",
+                                mode, scenario, level, result.throughput(), result.p99Ms(), result.errors());
+                        results.add(result);
+                    }
+                }
+            }
+        } finally {
+            if (pinned != null) {
+                pinned.close();
+            }
+        }
+        return results;
+    }
+
+    //Every client sends its requests back to back, all clients start together. Latency includes time spent
+    //queued for a server thread or a connection, which is exactly where the two thread models differ.
+    private static Result drive(HttpClient client, Supplier<HttpRequest> request, String mode, String scenario,
+                                int concurrency, int requestsPerClient) throws InterruptedException {
+        int total = concurrency * requestsPerClient;
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong started = new AtomicLong();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request.get(), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                });
+            }
+            started.set(System.nanoTime());
+            start.countDown();
+        }
+        long wallNanos = System.nanoTime() - started.get();
+
+        int recorded = next.get();
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        return new Result(mode, scenario, concurrency, recorded, errors.get(),
+                recorded / (wallNanos / 1_000_000_000.0),
+                percentileMs(sorted, 50),
+                percentileMs(sorted, 99));
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]) / 1000.0;
+    }
+
+    //Answers /api/generate with a recorded roadmap after the injected latency, without tying up a thread while waiting
+    private static DisposableServer stubOllama(Duration latency) throws IOException {
+        String roadmap = readFixture("/fixtures/roadmap-medium.txt");
+        String body = new ObjectMapper().writeValueAsString(Map.of(
+                "response", roadmap,
+                "done", true,
+                "eval_count", 900,
+                "eval_duration", latency.toNanos(),
+                "total_duration", latency.toNanos()));
+
+        return HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .post("/api/generate", (request, response) -> request.receive().then()
+                                .then(Mono.delay(latency))
+                                .thenMany(response.header("Content-Type", "application/json")
+                                        .sendString(Mono.just(body))))
+                        .get("/api/tags", (request, response) -> response.header("Content-Type", "application/json")
+                                .sendString(Mono.just("{\"models\":[]}"))))
+                .bindNow();
+    }
+
+    // The first frame in our own code says more than the JDK lock the thread was parked on
+    private static String pinnedSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "(no stack trace)";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("com.example.NextSteps")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        RecordedFrame top = stackTrace.getFrames().get(0);
+        return top.getMethod().getType().getName() + "." + top.getMethod().getName() + ":" + top.getLineNumber();
+    }
+
+    private static String setting(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static String readFixture(String path) {
+        try (InputStream in = ThreadingLoadBenchmark.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark fixture " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
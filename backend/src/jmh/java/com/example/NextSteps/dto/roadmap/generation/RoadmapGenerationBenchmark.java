@@ -0,0 +1,138 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.entities.Profile;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Covers everything between Ollama's response body and a validated RoadMapDto, using recorded model
+//outputs of different sizes from src/jmh/resources/fixtures
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RoadmapGenerationBenchmark {
+
+    @Param({"small", "medium", "large"})
+    private String fixture;
+
+    private OllamaRoadMapProvider provider;
+    private RoadmapJsonReader jsonReader;
+    private ObjectMapper objectMapper;
+    private Validator validator;
+
+    private String rawOutput;
+    private String extractedJson;
+    private List<String> chunks;
+    private RoadMapDto roadmap;
+    private Profile profile;
+
+    @Setup
+    public void setUp() {
+        // Mirrors the Spring Boot defaults the application runs with
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Never called, the benchmarks stop short of the upstream request
+        OllamaBulkhead ollamaBulkhead = new OllamaBulkhead(meterRegistry, 1, 5);
+        OllamaNodePool ollamaNodePool = new OllamaNodePool(List.of("http://localhost:11434"),
+                new OllamaNodePool.Settings(1, Duration.ofSeconds(60), 3, Duration.ofSeconds(2), false, 95),
+                ollamaBulkhead, meterRegistry);
+        OllamaCircuitBreaker ollamaCircuitBreaker = new OllamaCircuitBreaker(meterRegistry, 20, 10, 50, 60000, 80,
+                30000, 2);
+        GenerationMetrics generationMetrics = new GenerationMetrics(meterRegistry, "mistral");
+        RoadmapPromptBuilder promptBuilder = new RoadmapPromptBuilder("mistral", 1024, 4096, "30m",
+                new RoadmapJsonSchema(objectMapper, true));
+        jsonReader = new RoadmapJsonReader(objectMapper);
+        provider = new OllamaRoadMapProvider(ollamaNodePool, ollamaBulkhead, ollamaCircuitBreaker, validator,
+                generationMetrics, promptBuilder, jsonReader, "mistral", 120, 2, GenerationMode.SINGLE, 4, 2);
+
+        rawOutput = readFixture("/fixtures/roadmap-" + fixture + ".txt");
+        extractedJson = rawOutput.substring(rawOutput.indexOf('{'), rawOutput.lastIndexOf('}') + 1);
+        chunks = splitIntoChunks(rawOutput);
+        roadmap = provider.parseRoadmapFromResponse(rawOutput, new GenerationTimings());
+
+        profile = new Profile();
+        profile.setUserId(UUID.fromString("c2eebc99-9c0b-4ef8-bb6d-6bb9bd380a33"));
+        profile.setFirstName("Test");
+        profile.setSurname("User");
+        profile.setGoalTitle("Learn DevOps");
+        profile.setSkills(List.of("Linux", "Git", "Basic Scripting"));
+        profile.setInterests(List.of("CI/CD", "Docker", "Kubernetes"));
+        profile.setUpdatedAt(OffsetDateTime.now());
+    }
+
+    // Baseline: Jackson alone on JSON that has already been cut out of the response
+    @Benchmark
+    public RoadMapDto readValue() throws IOException {
+        return objectMapper.readValue(extractedJson, RoadMapDto.class);
+    }
+
+    @Benchmark
+    public RoadMapDto extractAndParse() {
+        return provider.parseRoadmapFromResponse(rawOutput, new GenerationTimings());
+    }
+
+    // The same output fed through the non-blocking reader in the small chunks Ollama streams
+    @Benchmark
+    public RoadMapDto parseStreamedChunks() {
+        RoadmapJsonReader.Incremental reader = jsonReader.incremental();
+        for (String chunk : chunks) {
+            reader.accept(chunk);
+        }
+        return reader.roadmap().orElseThrow();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RoadMapDto>> validateRoadmap() {
+        return validator.validate(roadmap);
+    }
+
+    @Benchmark
+    public String buildUserPrompt() {
+        return provider.buildUserPrompt(profile);
+    }
+
+    // Roughly one token per chunk, the size Ollama streams at
+    private static List<String> splitIntoChunks(String text) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += 4) {
+            result.add(text.substring(i, Math.min(text.length(), i + 4)));
+        }
+        return result;
+    }
+
+    private static String readFixture(String path) {
+        try (InputStream in = RoadmapGenerationBenchmark.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark fixture " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
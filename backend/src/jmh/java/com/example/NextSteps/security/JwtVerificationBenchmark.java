@@ -0,0 +1,63 @@
+package com.example.NextSteps.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "NextStepsSecretKeyForJWTTokenGeneration2024SecureKey!";
+    private static final long EXPIRATION = 86_400_000L;
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = new JwtUtil(SECRET, EXPIRATION, 10_000);
+        uncachedJwtUtil = new JwtUtil(SECRET, EXPIRATION, 0);
+        token = cachingJwtUtil.generateToken(UUID.randomUUID(), "benchmark@nextsteps.com");
+    }
+
+    // The filter used to do this: validate, then read the subject, then read the email,
+    // deriving the key and building a parser for each of the three calls
+    @Benchmark
+    public void legacyThreeParses(Blackhole blackhole) {
+        Jwts.parser().verifyWith(legacySigningKey()).build().parseSignedClaims(token);
+
+        Claims subjectClaims = Jwts.parser().verifyWith(legacySigningKey()).build().parseSignedClaims(token).getPayload();
+        blackhole.consume(subjectClaims.getSubject());
+
+        Claims emailClaims = Jwts.parser().verifyWith(legacySigningKey()).build().parseSignedClaims(token).getPayload();
+        blackhole.consume(emailClaims.get("email", String.class));
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> singleParse() {
+        return uncachedJwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> cachedVerify() {
+        return cachingJwtUtil.verify(token);
+    }
+
+    private static SecretKey legacySigningKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+}
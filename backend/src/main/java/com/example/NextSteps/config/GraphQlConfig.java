@@ -0,0 +1,88 @@
+package com.example.NextSteps.config;
+
+import graphql.ExecutionResult;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collection;
+import java.util.Map;
+
+//Rejects a GraphQL query before any of it runs when it nests deeper than max-depth or could return more than
+//max-complexity values. Each field counts 1, and a list field counts its selection once per expected element:
+//ids given for users, the stage and course counts the prompts ask for, and first (capped at list-size) for a user's
+//roadmaps. Introspection is exempt: it only reads the schema, and graphql-java already bounds it on its own.
+@Configuration
+public class GraphQlConfig {
+
+    // Expected elements per list field, the prompts ask for 3-5 stages of 2-3 courses each
+    private static final Map<String, Integer> LIST_SIZES = Map.of(
+            "Roadmap.stages", 5,
+            "Stage.items", 3);
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(@Value("${graphql.max-depth:8}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth) {
+            @Override
+            public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+                    InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+                return isIntrospection(parameters.getExecutionContext().getOperationDefinition())
+                        ? SimpleInstrumentationContext.noOp()
+                        : super.beginExecuteOperation(parameters, state);
+            }
+        };
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${graphql.max-complexity:20000}") int maxComplexity,
+            @Value("${graphql.list-size:10}") int listSize) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, complexityCalculator(listSize)) {
+            @Override
+            public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+                    InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+                return isIntrospection(parameters.getExecutionContext().getOperationDefinition())
+                        ? SimpleInstrumentationContext.noOp()
+                        : super.beginExecuteOperation(parameters, state);
+            }
+        };
+    }
+
+    // Only __schema, __type and __typename at the top, a query that also reads data is limited as usual
+    static boolean isIntrospection(OperationDefinition operation) {
+        return operation.getSelectionSet().getSelections().stream()
+                .allMatch(selection -> selection instanceof Field field && field.getName().startsWith("__"));
+    }
+
+    static FieldComplexityCalculator complexityCalculator(int listSize) {
+        return (environment, childComplexity) -> {
+            GraphQLType type = GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType());
+            if (!GraphQLTypeUtil.isList(type)) {
+                return 1 + childComplexity;
+            }
+            Object ids = environment.getArguments().get("ids");
+            Object first = environment.getArguments().get("first");
+            int size;
+            if (ids instanceof Collection<?> given) {
+                size = given.size();
+            } else if (first instanceof Integer requested) {
+                size = Math.max(0, Math.min(requested, listSize));
+            } else {
+                size = LIST_SIZES.getOrDefault(environment.getParentType().getName() + "."
+                        + environment.getFieldDefinition().getName(), listSize);
+            }
+            return 1 + size * childComplexity;
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.NextSteps.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+//The pool is deliberately not a ConnectionFactory bean, Boot would take that as R2DBC replacing JDBC and drop the DataSource.
+//Only the DatabaseClient is shared, the reactive repositories are the only ones that use it.
+@Configuration
+public class R2dbcConfig implements DisposableBean {
+
+    @Value("${spring.r2dbc.url:r2dbc:postgresql://localhost:5432/nextsteps}")
+    private String url;
+
+    @Value("${spring.r2dbc.username:nextsteps}")
+    private String username;
+
+    @Value("${spring.r2dbc.password:nextsteps}")
+    private String password;
+
+    @Value("${spring.r2dbc.pool.initial-size:2}")
+    private int initialSize;
+
+    @Value("${spring.r2dbc.pool.max-size:20}")
+    private int maxSize;
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive-roadmaps")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMinutes(10))
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.NextSteps.config;
 
+import com.example.NextSteps.dto.roadmap.generation.OllamaBulkhead;
+import com.example.NextSteps.dto.roadmap.generation.OllamaNodePool;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class WebClientConfig {
@@ -11,17 +17,53 @@ public class WebClientConfig {
     @Value("${ai.ollama.base-url:http://localhost:11434}")
     private String ollamaBaseUrl;
 
+    // Comma separated, falls back to the single base-url when not set
+    @Value("${ai.ollama.base-urls:}")
+    private String ollamaBaseUrls;
+
     @Value("${ai.ollama.model:llama3.2}")
     private String aiModel;
 
     @Value("${ai.ollama.timeout-seconds:120}")
     private int timeout;
 
+    @Value("${ai.ollama.pool.max-connections:16}")
+    private int maxConnections;
+
+    @Value("${ai.ollama.pool.max-idle-seconds:60}")
+    private int maxIdleSeconds;
+
+    @Value("${ai.ollama.health.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${ai.ollama.health.probe-timeout-ms:2000}")
+    private long probeTimeoutMs;
+
+    @Value("${ai.ollama.hedge.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${ai.ollama.hedge.percentile:95}")
+    private double hedgePercentile;
+
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder()
-                .baseUrl(ollamaBaseUrl)
-                .build();
+    public OllamaNodePool ollamaNodePool(OllamaBulkhead ollamaBulkhead, MeterRegistry meterRegistry) {
+        List<String> baseUrls = Arrays.stream(ollamaBaseUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        if (baseUrls.isEmpty()) {
+            baseUrls = List.of(ollamaBaseUrl);
+        }
+
+        OllamaNodePool.Settings settings = new OllamaNodePool.Settings(
+                maxConnections,
+                Duration.ofSeconds(maxIdleSeconds),
+                failureThreshold,
+                Duration.ofMillis(probeTimeoutMs),
+                hedgingEnabled,
+                hedgePercentile
+        );
+        return new OllamaNodePool(baseUrls, settings, ollamaBulkhead, meterRegistry);
     }
 
     @Bean
@@ -34,4 +76,3 @@ public class WebClientConfig {
         return timeout;
     }
 }
-
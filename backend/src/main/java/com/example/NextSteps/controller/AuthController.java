@@ -2,7 +2,10 @@ package com.example.NextSteps.controller;
 
 import com.example.NextSteps.dto.LoginRequest;
 import com.example.NextSteps.dto.LoginResponse;
+import com.example.NextSteps.security.PasswordHashingBusyException;
 import com.example.NextSteps.service.LoginAuthenticationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,7 +23,14 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest loginRequest) {
-        LoginResponse response = loginAuthenticationService.login(loginRequest);
+        LoginResponse response;
+        try {
+            response = loginAuthenticationService.login(loginRequest);
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new LoginResponse(false, e.getMessage(), null, null, null));
+        }
 
         if (response.isSuccess()) {
             return ResponseEntity.ok(response);
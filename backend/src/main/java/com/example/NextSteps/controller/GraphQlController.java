@@ -0,0 +1,158 @@
+package com.example.NextSteps.controller;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.RoadmapDocumentView;
+import com.example.NextSteps.dto.roadmap.UserRoadmapSummaryView;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.example.NextSteps.entities.Profile;
+import com.example.NextSteps.entities.User;
+import com.example.NextSteps.repository.ProfileRepository;
+import com.example.NextSteps.repository.RoadmapRepository;
+import com.example.NextSteps.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.schema.DataFetchingEnvironment;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//GraphQL over the same tables as the REST endpoints, so the dashboard gets profiles, roadmap lists and roadmaps in one
+//request. Every nested level is loaded for all of its parents in one query, so a query over N users runs the same few
+//queries as one over a single user: users, profiles, roadmap summaries and, only when stages or the summary are
+//selected, the roadmap documents. Query size is capped by the depth and complexity limits in GraphQlConfig.
+@Controller
+public class GraphQlController {
+
+    private static final String USER_ROADMAPS = "userRoadmaps";
+
+    // A user's roadmaps depend on the first argument too, so it is part of the key
+    private record UserRoadmaps(UUID userId, int first) {
+    }
+
+    private final UserRepository userRepository;
+    private final ProfileRepository profileRepository;
+    private final RoadmapRepository roadmapRepository;
+    private final ObjectMapper objectMapper;
+    private final int listSize;
+
+    public GraphQlController(UserRepository userRepository,
+                             ProfileRepository profileRepository,
+                             RoadmapRepository roadmapRepository,
+                             ObjectMapper objectMapper,
+                             BatchLoaderRegistry batchLoaderRegistry,
+                             @Value("${graphql.list-size:10}") int listSize) {
+        this.userRepository = userRepository;
+        this.profileRepository = profileRepository;
+        this.roadmapRepository = roadmapRepository;
+        this.objectMapper = objectMapper;
+        this.listSize = listSize;
+
+        // A DataLoader rather than a @BatchMapping, so targetRole, summary and stages share one load per roadmap
+        batchLoaderRegistry.forTypePair(UUID.class, RoadMapDto.class)
+                .registerMappedBatchLoader((ids, environment) -> Mono.fromCallable(() -> loadDocuments(ids)));
+        // And for a user's roadmaps, since a @BatchMapping cannot see the first argument
+        batchLoaderRegistry.<UserRoadmaps, List<UserRoadmapSummaryView>>forName(USER_ROADMAPS)
+                .registerMappedBatchLoader((keys, environment) -> Mono.fromCallable(() -> loadRoadmaps(keys)));
+    }
+
+    @QueryMapping
+    public User me(Principal principal) {
+        return userRepository.findById(UUID.fromString(principal.getName())).orElse(null);
+    }
+
+    @QueryMapping
+    public User user(@Argument UUID id) {
+        return userRepository.findById(id).orElse(null);
+    }
+
+    // In the order asked for, unknown ids are left out
+    @QueryMapping
+    public List<User> users(@Argument List<UUID> ids) {
+        Map<UUID, User> found = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream().distinct().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    @QueryMapping
+    public UserRoadmapSummaryView roadmap(@Argument UUID id) {
+        return roadmapRepository.findSummaryById(id).orElse(null);
+    }
+
+    @BatchMapping(typeName = "User")
+    public List<Profile> profile(List<User> users) {
+        Map<UUID, Profile> profiles = profileRepository.findAllById(users.stream().map(User::getId).toList()).stream()
+                .collect(Collectors.toMap(Profile::getUserId, Function.identity()));
+        return users.stream().map(user -> profiles.get(user.getId())).toList();
+    }
+
+    // Never more than list-size, which is what the complexity limit in GraphQlConfig assumes
+    @SchemaMapping(typeName = "User")
+    public CompletableFuture<List<UserRoadmapSummaryView>> roadmaps(User user, @Argument Integer first,
+                                                                    DataFetchingEnvironment environment) {
+        int limit = Math.max(0, Math.min(first != null ? first : listSize, listSize));
+        DataLoader<UserRoadmaps, List<UserRoadmapSummaryView>> roadmaps = environment.getDataLoader(USER_ROADMAPS);
+        return roadmaps.load(new UserRoadmaps(user.getId(), limit))
+                .thenApply(loaded -> loaded != null ? loaded : List.of());
+    }
+
+    @SchemaMapping(typeName = "Roadmap")
+    public CompletableFuture<String> targetRole(UserRoadmapSummaryView roadmap, DataLoader<UUID, RoadMapDto> documents) {
+        return documents.load(roadmap.getId()).thenApply(document -> document != null ? document.getTargetRole() : null);
+    }
+
+    @SchemaMapping(typeName = "Roadmap")
+    public CompletableFuture<String> summary(UserRoadmapSummaryView roadmap, DataLoader<UUID, RoadMapDto> documents) {
+        return documents.load(roadmap.getId()).thenApply(document -> document != null ? document.getSummary() : null);
+    }
+
+    @SchemaMapping(typeName = "Roadmap")
+    public CompletableFuture<List<Stage>> stages(UserRoadmapSummaryView roadmap, DataLoader<UUID, RoadMapDto> documents) {
+        return documents.load(roadmap.getId()).thenApply(document ->
+                document != null && document.getStages() != null ? document.getStages() : List.of());
+    }
+
+    // One query per distinct first, which within a single GraphQL query is normally just one
+    private Map<UserRoadmaps, List<UserRoadmapSummaryView>> loadRoadmaps(Set<UserRoadmaps> keys) {
+        Map<Integer, List<UUID>> userIdsByFirst = keys.stream().collect(Collectors.groupingBy(UserRoadmaps::first,
+                Collectors.mapping(UserRoadmaps::userId, Collectors.toList())));
+        Map<UserRoadmaps, List<UserRoadmapSummaryView>> roadmaps = new HashMap<>();
+        userIdsByFirst.forEach((first, userIds) -> {
+            // Already newest first, grouping keeps that order within each user
+            for (UserRoadmapSummaryView roadmap : roadmapRepository.findSummariesByUserIdIn(userIds, first)) {
+                roadmaps.computeIfAbsent(new UserRoadmaps(roadmap.getUserId(), first), key -> new ArrayList<>())
+                        .add(roadmap);
+            }
+        });
+        return roadmaps;
+    }
+
+    private Map<UUID, RoadMapDto> loadDocuments(Set<UUID> ids) {
+        Map<UUID, RoadMapDto> documents = new HashMap<>();
+        for (RoadmapDocumentView row : roadmapRepository.findDocumentsByIdIn(ids)) {
+            try {
+                documents.put(row.getId(), objectMapper.readValue(row.getDocument(), RoadMapDto.class));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Failed to deserialize roadmap " + row.getId(), e);
+            }
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.NextSteps.controller;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.RoadmapSummary;
+import com.example.NextSteps.dto.roadmap.generation.GenerationRateLimiter;
+import com.example.NextSteps.dto.roadmap.generation.GenerationRejectedException;
+import com.example.NextSteps.entities.Profile;
+import com.example.NextSteps.service.ReactiveRoadmapService;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+//Non-blocking variant of RoadmapController. Spring MVC completes these asynchronously, so a request waiting on
+//Ollama or Postgres holds no servlet thread.
+@RestController
+@RequestMapping("/api/reactive/roadmaps")
+@CrossOrigin(origins = "http://localhost:3000")
+@AllArgsConstructor
+public class ReactiveRoadmapController {
+
+    private final ReactiveRoadmapService reactiveRoadmapService;
+    private final GenerationRateLimiter generationRateLimiter;
+
+    @PostMapping("/generate")
+    public Mono<ResponseEntity<RoadMapDto>> generate(@Valid @RequestBody Profile profile) {
+        try {
+            generationRateLimiter.acquire();
+        } catch (GenerationRejectedException e) {
+            return Mono.just(RoadmapController.rejected(e));
+        }
+        return reactiveRoadmapService.generateAndSaveRoadmap(profile)
+                .map(ResponseEntity::ok)
+                .onErrorResume(GenerationRejectedException.class, e -> Mono.just(RoadmapController.rejected(e)));
+    }
+
+    @PostMapping("/user/{userId}/generate")
+    public Mono<ResponseEntity<RoadMapDto>> generateForUser(@PathVariable UUID userId) {
+        try {
+            generationRateLimiter.acquire();
+        } catch (GenerationRejectedException e) {
+            return Mono.just(RoadmapController.rejected(e));
+        }
+        return reactiveRoadmapService.generateAndSaveRoadmap(userId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(GenerationRejectedException.class, e -> Mono.just(RoadmapController.rejected(e)));
+    }
+
+    // Newline delimited so the rows are written as they are read rather than collected into one array
+    @GetMapping(value = "/user/{userId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RoadmapSummary> getUserRoadmapSummaries(@PathVariable UUID userId) {
+        return reactiveRoadmapService.getRoadmapSummaries(userId);
+    }
+
+    @GetMapping("/{roadmapId}")
+    public Mono<ResponseEntity<RoadMapDto>> getRoadmap(@PathVariable UUID roadmapId) {
+        return reactiveRoadmapService.getRoadmapById(roadmapId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
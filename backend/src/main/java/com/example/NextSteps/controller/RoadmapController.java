@@ -1,17 +1,35 @@
 package com.example.NextSteps.controller;
 
 import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.RoadmapPage;
+import com.example.NextSteps.dto.roadmap.batch.RoadmapBatchRequest;
+import com.example.NextSteps.dto.roadmap.batch.RoadmapBatchResponse;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
+import com.example.NextSteps.dto.roadmap.course.CourseStatusUpdateRequest;
+import com.example.NextSteps.dto.roadmap.generation.GenerationRateLimitedException;
+import com.example.NextSteps.dto.roadmap.generation.GenerationRateLimiter;
+import com.example.NextSteps.dto.roadmap.generation.GenerationRejectedException;
+import com.example.NextSteps.dto.roadmap.job.GenerationJobResponse;
 import com.example.NextSteps.entities.Profile;
 import com.example.NextSteps.entities.Roadmap;
+import com.example.NextSteps.service.GenerationJobService;
+import com.example.NextSteps.service.RoadmapBatchService;
 import com.example.NextSteps.service.RoadmapService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/roadmaps")
 @CrossOrigin(origins = "http://localhost:3000")
@@ -19,10 +37,82 @@ import java.util.UUID;
 public class RoadmapController {
 
     private final RoadmapService roadmapService;
+    private final GenerationJobService generationJobService;
+    private final RoadmapBatchService roadmapBatchService;
+    private final GenerationRateLimiter generationRateLimiter;
 
     @PostMapping("/generate")
-    public RoadMapDto generate(@Valid @RequestBody Profile profile) {
-        return roadmapService.generateAndSaveRoadmap(profile);
+    public ResponseEntity<RoadMapDto> generate(@Valid @RequestBody Profile profile) {
+        try {
+            generationRateLimiter.acquire();
+            return ResponseEntity.ok(roadmapService.generateAndSaveRoadmap(profile));
+        } catch (GenerationRejectedException e) {
+            return rejected(e);
+        }
+    }
+
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> generateStream(@Valid @RequestBody Profile profile) {
+        try {
+            generationRateLimiter.acquire();
+        } catch (GenerationRejectedException e) {
+            return rejected(e);
+        }
+        return ResponseEntity.ok(roadmapService.streamAndSaveRoadmap(profile)
+                .map(event -> ServerSentEvent.<Object>builder(event.payload())
+                        .event(event.type().name().toLowerCase())
+                        .build())
+                .onErrorResume(e -> Flux.just(ServerSentEvent.<Object>builder(streamErrorMessage(e))
+                        .event("error")
+                        .build())));
+    }
+
+    // Exception messages can carry upstream URLs and model output, the client only gets a fixed text
+    private static String streamErrorMessage(Throwable e) {
+        if (e instanceof GenerationRejectedException) {
+            return "Roadmap generation is busy, please try again shortly";
+        }
+        log.warn("Streamed roadmap generation failed", e);
+        return "Roadmap generation failed";
+    }
+
+    // A queued job still ends up in Ollama, so it spends from the same budget as a direct generation
+    @PostMapping("/jobs")
+    public ResponseEntity<GenerationJobResponse> submitJob(@Valid @RequestBody Profile profile) {
+        try {
+            generationRateLimiter.acquire();
+        } catch (GenerationRejectedException e) {
+            return rejected(e);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(generationJobService.submit(profile));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<GenerationJobResponse> getJob(@PathVariable UUID jobId) {
+        return generationJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Operators only (SecurityConfig). A batch is charged once to whoever submits it, its generations already share
+    // the background flow of the fair queue and the batch semaphore.
+    @PostMapping("/batches")
+    public ResponseEntity<RoadmapBatchResponse> submitBatch(@Valid @RequestBody RoadmapBatchRequest request) {
+        try {
+            generationRateLimiter.acquire();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(roadmapBatchService.submit(request));
+        } catch (GenerationRejectedException e) {
+            return rejected(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<RoadmapBatchResponse> getBatch(@PathVariable UUID batchId) {
+        return roadmapBatchService.getBatch(batchId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/user/{userId}")
@@ -30,11 +120,68 @@ public class RoadmapController {
         return roadmapService.getRoadmapsByUserId(userId);
     }
 
+    @GetMapping("/user/{userId}/summaries")
+    public ResponseEntity<RoadmapPage> getUserRoadmapSummaries(@PathVariable UUID userId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(roadmapService.getRoadmapSummaries(userId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/user/{userId}/with-course")
+    public List<UUID> getUserRoadmapsWithCourse(@PathVariable UUID userId, @RequestParam String title) {
+        return roadmapService.findRoadmapIdsWithCourse(userId, title);
+    }
+
+    @GetMapping("/user/{userId}/with-status")
+    public List<UUID> getUserRoadmapsWithCourseStatus(@PathVariable UUID userId,
+                                                      @RequestParam(defaultValue = "IN_PROGRESS") CourseStatus status) {
+        return roadmapService.findRoadmapIdsWithCourseStatus(userId, status);
+    }
+
     @GetMapping("/{roadmapId}")
     public ResponseEntity<RoadMapDto> getRoadmap(@PathVariable UUID roadmapId) {
         return roadmapService.getRoadmapById(roadmapId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
-}
 
+    // 409 when the user changed a course status while the roadmap was being regenerated, they can simply retry
+    @PostMapping("/{roadmapId}/regenerate")
+    public ResponseEntity<RoadMapDto> regenerate(@PathVariable UUID roadmapId, @Valid @RequestBody Profile profile) {
+        try {
+            generationRateLimiter.acquire();
+            return roadmapService.regenerateRoadmap(roadmapId, profile)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (GenerationRejectedException e) {
+            return rejected(e);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PatchMapping("/{roadmapId}/stages/{stageId}/items/{itemId}")
+    public ResponseEntity<Void> updateCourseStatus(@PathVariable UUID roadmapId,
+                                                   @PathVariable String stageId,
+                                                   @PathVariable String itemId,
+                                                   @Valid @RequestBody CourseStatusUpdateRequest request) {
+        if (roadmapService.updateCourseStatus(roadmapId, stageId, itemId, request.getStatus())) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    // 429 when the user is over their own limit, 503 when the backend as a whole is full
+    static <T> ResponseEntity<T> rejected(GenerationRejectedException e) {
+        HttpStatus status = e instanceof GenerationRateLimitedException
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.NextSteps.controller;
+
+import com.example.NextSteps.dto.userimport.UserImportResult;
+import com.example.NextSteps.service.UserImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+//The body is read as a raw stream, so a large partner file is never buffered into memory before the import starts
+@RestController
+@RequestMapping("/api/import")
+@CrossOrigin(origins = "http://localhost:3000")
+public class UserImportController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final UserImportService userImportService;
+
+    public UserImportController(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    @PostMapping(value = "/users", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<UserImportResult> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                        @RequestParam(defaultValue = "false") boolean updateExistingProfiles,
+                                                        InputStream body) throws IOException {
+        UserImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        try {
+            return ResponseEntity.ok(userImportService.importUsers(body, format, updateExistingProfiles));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
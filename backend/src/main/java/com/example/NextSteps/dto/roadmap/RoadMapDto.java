@@ -2,6 +2,8 @@ package com.example.NextSteps.dto.roadmap;
 
 import com.example.NextSteps.dto.roadmap.generation.GenerationDetails;
 import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Data;
@@ -30,8 +32,13 @@ public class RoadMapDto {
 
     private GenerationDetails generationDetails;
 
+    @Valid
     @NotEmpty
     private List<Stage> stages;
 
+    //Only set on a freshly generated roadmap, never part of the stored document. Indexed once the roadmap gets its id.
+    @JsonIgnore
+    private float[] profileEmbedding;
+
 }
 
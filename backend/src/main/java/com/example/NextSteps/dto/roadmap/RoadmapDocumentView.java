@@ -0,0 +1,10 @@
+package com.example.NextSteps.dto.roadmap;
+
+import java.util.UUID;
+
+public interface RoadmapDocumentView {
+
+    UUID getId();
+
+    String getDocument();
+}
@@ -0,0 +1,21 @@
+package com.example.NextSteps.dto.roadmap;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoadmapPage {
+
+    private List<RoadmapSummary> items;
+
+    //Pass back as ?cursor= to get the next page, null on the last page
+    private String nextCursor;
+
+    //Only counted for the first page
+    private Long totalCount;
+}
@@ -0,0 +1,25 @@
+package com.example.NextSteps.dto.roadmap;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoadmapSummary {
+
+    private UUID id;
+    private String title;
+    private OffsetDateTime createdAt;
+    private int stageCount;
+    private int percentComplete;
+
+    public static RoadmapSummary from(RoadmapSummaryView view) {
+        int percent = view.getCourseCount() == 0 ? 0 : view.getCompletedCourseCount() * 100 / view.getCourseCount();
+        return new RoadmapSummary(view.getId(), view.getTitle(), view.getCreatedAt(), view.getStageCount(), percent);
+    }
+}
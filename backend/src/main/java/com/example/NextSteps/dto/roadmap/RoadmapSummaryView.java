@@ -0,0 +1,19 @@
+package com.example.NextSteps.dto.roadmap;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public interface RoadmapSummaryView {
+
+    UUID getId();
+
+    String getTitle();
+
+    OffsetDateTime getCreatedAt();
+
+    int getStageCount();
+
+    int getCourseCount();
+
+    int getCompletedCourseCount();
+}
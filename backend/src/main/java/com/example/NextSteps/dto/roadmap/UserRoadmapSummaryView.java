@@ -0,0 +1,9 @@
+package com.example.NextSteps.dto.roadmap;
+
+import java.util.UUID;
+
+//A summary that also says whose roadmap it is, so summaries loaded for many users at once can be grouped again
+public interface UserRoadmapSummaryView extends RoadmapSummaryView {
+
+    UUID getUserId();
+}
@@ -0,0 +1,16 @@
+package com.example.NextSteps.dto.roadmap.batch;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoadmapBatchFailure {
+
+    private UUID userId;
+    private String errorMessage;
+}
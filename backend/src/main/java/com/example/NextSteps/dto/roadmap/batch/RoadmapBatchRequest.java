@@ -0,0 +1,18 @@
+package com.example.NextSteps.dto.roadmap.batch;
+
+import com.example.NextSteps.entities.Profile;
+import jakarta.validation.Valid;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+//Either list may be empty. Users given by id are generated from their stored profile, a user appearing twice is generated once
+@Data
+public class RoadmapBatchRequest {
+
+    private List<UUID> userIds;
+
+    @Valid
+    private List<Profile> profiles;
+}
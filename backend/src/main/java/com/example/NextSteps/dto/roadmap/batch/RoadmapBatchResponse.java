@@ -0,0 +1,26 @@
+package com.example.NextSteps.dto.roadmap.batch;
+
+import com.example.NextSteps.entities.GenerationJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoadmapBatchResponse {
+
+    private UUID batchId;
+    private GenerationJobStatus status;
+    private int total;
+    private int pending;
+    private int completed;
+    private int failed;
+    private List<RoadmapBatchFailure> failures;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime updatedAt;
+}
@@ -26,7 +26,7 @@ public class Course {
     @DecimalMin("0.0")
     private Double estimatedHours;
 
-    @NotEmpty
+    @NotNull
     private CourseStatus status;
 
 }
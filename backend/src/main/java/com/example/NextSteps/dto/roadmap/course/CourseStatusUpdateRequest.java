@@ -0,0 +1,11 @@
+package com.example.NextSteps.dto.roadmap.course;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CourseStatusUpdateRequest {
+
+    @NotNull
+    private CourseStatus status;
+}
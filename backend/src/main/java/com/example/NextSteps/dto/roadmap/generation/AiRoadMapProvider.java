@@ -2,8 +2,13 @@ package com.example.NextSteps.dto.roadmap.generation;
 
 import com.example.NextSteps.dto.roadmap.RoadMapDto;
 import com.example.NextSteps.entities.Profile;
-import com.example.NextSteps.entities.Roadmap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface AiRoadMapProvider {
     RoadMapDto generateRoadmap(Profile profile);
+
+    Mono<RoadMapDto> generateRoadmapAsync(Profile profile);
+
+    Flux<RoadmapStreamEvent> streamRoadmap(Profile profile);
 }
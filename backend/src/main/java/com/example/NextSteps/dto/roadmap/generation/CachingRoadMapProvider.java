@@ -0,0 +1,355 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.entities.Profile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Profiles with the same goal, skills and interests get the same roadmap, so only the first one pays for a generation.
+//Concurrent requests for the same key wait on the one already in flight instead of calling Ollama again.
+//A miss first looks for a close enough earlier roadmap in RoadmapSimilarityIndex and only generates when there is none.
+@Primary
+@Component
+public class CachingRoadMapProvider implements AiRoadMapProvider {
+
+    private final OllamaRoadMapProvider delegate;
+    private final FairGenerationScheduler scheduler;
+    private final OllamaCircuitBreaker ollamaCircuitBreaker;
+    private final RoadmapSimilarityIndex roadmapSimilarityIndex;
+    private final RoadmapCache roadmapCache;
+    private final ObjectMapper objectMapper;
+    private final String aiModel;
+    private final boolean enabled;
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter similar;
+
+    //What a miss produced, the embedding is only kept for a generated roadmap so that it gets indexed once saved
+    private record Template(String json, float[] embedding) {
+    }
+
+    public CachingRoadMapProvider(OllamaRoadMapProvider delegate,
+                                  FairGenerationScheduler scheduler,
+                                  OllamaCircuitBreaker ollamaCircuitBreaker,
+                                  RoadmapSimilarityIndex roadmapSimilarityIndex,
+                                  RoadmapCache roadmapCache,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  String aiModel,
+                                  @Value("${ai.cache.enabled:true}") boolean enabled) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+        this.ollamaCircuitBreaker = ollamaCircuitBreaker;
+        this.roadmapSimilarityIndex = roadmapSimilarityIndex;
+        this.roadmapCache = roadmapCache;
+        this.objectMapper = objectMapper;
+        this.aiModel = aiModel;
+        this.enabled = enabled;
+
+        this.hits = meterRegistry.counter("roadmap.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("roadmap.cache.requests", "result", "miss");
+        this.coalesced = meterRegistry.counter("roadmap.cache.requests", "result", "coalesced");
+        this.similar = meterRegistry.counter("roadmap.cache.requests", "result", "similar");
+        Gauge.builder("roadmap.cache.size", roadmapCache, RoadmapCache::size).register(meterRegistry);
+    }
+
+    @Override
+    public RoadMapDto generateRoadmap(Profile profile) {
+        String flow = FairGenerationScheduler.currentFlow();
+        if (!enabled) {
+            return personalise(template(profile, flow), profile);
+        }
+
+        String key = cacheKey(profile);
+        Optional<String> cached = roadmapCache.get(key);
+        if (cached.isPresent()) {
+            hits.increment();
+            return personalise(cached.get(), profile);
+        }
+
+        CompletableFuture<String> generation = new CompletableFuture<>();
+        CompletableFuture<String> leader = inFlight.putIfAbsent(key, generation);
+        if (leader != null) {
+            coalesced.increment();
+            return personalise(await(leader), profile);
+        }
+
+        try {
+            // The previous leader may have finished between the cache lookup and claiming the key
+            cached = roadmapCache.get(key);
+            if (cached.isPresent()) {
+                hits.increment();
+                generation.complete(cached.get());
+                return personalise(cached.get(), profile);
+            }
+
+            misses.increment();
+            Template template = template(profile, flow);
+            roadmapCache.put(key, aiModel, template.json());
+            generation.complete(template.json());
+            return personalise(template, profile);
+        } catch (RuntimeException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, generation);
+        }
+    }
+
+    //Same cache and coalescing as generateRoadmap without holding a thread while the generation runs.
+    //Only the roadmap_cache table reads and writes are blocking, they are moved onto boundedElastic.
+    @Override
+    public Mono<RoadMapDto> generateRoadmapAsync(Profile profile) {
+        String flow = FairGenerationScheduler.currentFlow();
+        if (!enabled) {
+            return templateAsync(profile, flow).map(template -> personalise(template, profile));
+        }
+
+        String key = cacheKey(profile);
+        return Mono.fromCallable(() -> roadmapCache.get(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> {
+                    if (cached.isPresent()) {
+                        hits.increment();
+                        return Mono.just(personalise(cached.get(), profile));
+                    }
+
+                    CompletableFuture<String> generation = new CompletableFuture<>();
+                    CompletableFuture<String> leader = inFlight.putIfAbsent(key, generation);
+                    if (leader != null) {
+                        coalesced.increment();
+                        return Mono.fromFuture(leader).map(json -> personalise(json, profile));
+                    }
+
+                    misses.increment();
+                    return templateAsync(profile, flow)
+                            .flatMap(template -> Mono.fromCallable(() -> {
+                                        roadmapCache.put(key, aiModel, template.json());
+                                        return template;
+                                    })
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .doOnNext(template -> generation.complete(template.json()))
+                            .doOnError(generation::completeExceptionally)
+                            .doFinally(signal -> {
+                                // Cancelled or empty, followers must not wait on a result that is never coming
+                                generation.cancel(false);
+                                inFlight.remove(key, generation);
+                            })
+                            .map(template -> personalise(template, profile));
+                });
+    }
+
+    @Override
+    public Flux<RoadmapStreamEvent> streamRoadmap(Profile profile) {
+        String flow = FairGenerationScheduler.currentFlow();
+        if (!enabled) {
+            return streamTemplate(profile, flow);
+        }
+
+        String key = cacheKey(profile);
+        // The cache is JDBC, so both the lookup and the write happen off the event loop
+        return Mono.fromCallable(() -> roadmapCache.get(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(cached -> {
+                    if (cached.isPresent()) {
+                        hits.increment();
+                        return replay(personalise(cached.get(), profile));
+                    }
+
+                    misses.increment();
+                    return streamTemplate(profile, flow)
+                            .concatMap(event -> event.type() != RoadmapStreamEvent.Type.COMPLETE
+                                    ? Mono.just(event)
+                                    : Mono.fromCallable(() -> {
+                                        roadmapCache.put(key, aiModel, write(event.roadmap()));
+                                        return event;
+                                    }).subscribeOn(Schedulers.boundedElastic()));
+                });
+    }
+
+    // Only misses take a slot in the fair queue, hits, similar roadmaps and coalesced followers never reach Ollama
+    private Template template(Profile profile, String flow) {
+        float[] embedding = roadmapSimilarityIndex.embed(profile).block();
+        if (embedding != null) {
+            Optional<String> reused = roadmapSimilarityIndex.findSimilar(embedding, profile);
+            if (reused.isPresent()) {
+                similar.increment();
+                return new Template(reused.get(), null);
+            }
+        }
+        return new Template(write(scheduled(profile, flow).block()), embedding);
+    }
+
+    private Mono<Template> templateAsync(Profile profile, String flow) {
+        return roadmapSimilarityIndex.embed(profile)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(embedding -> Mono.fromCallable(() ->
+                                embedding.flatMap(vector -> roadmapSimilarityIndex.findSimilar(vector, profile)))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(reused -> {
+                            if (reused.isPresent()) {
+                                similar.increment();
+                                return Mono.just(new Template(reused.get(), null));
+                            }
+                            return scheduled(profile, flow)
+                                    .map(roadmap -> new Template(write(roadmap), embedding.orElse(null)));
+                        }));
+    }
+
+    private Flux<RoadmapStreamEvent> streamTemplate(Profile profile, String flow) {
+        return roadmapSimilarityIndex.embed(profile)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMapMany(embedding -> Mono.fromCallable(() ->
+                                embedding.flatMap(vector -> roadmapSimilarityIndex.findSimilar(vector, profile)))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMapMany(reused -> {
+                            if (reused.isPresent()) {
+                                similar.increment();
+                                return replay(personalise(reused.get(), profile));
+                            }
+                            return scheduledStream(profile, flow)
+                                    .doOnNext(event -> {
+                                        if (event.type() == RoadmapStreamEvent.Type.COMPLETE) {
+                                            event.roadmap().setProfileEmbedding(embedding.orElse(null));
+                                            recordProfile(event.roadmap(), profile);
+                                        }
+                                    });
+                        }));
+    }
+
+    private static Flux<RoadmapStreamEvent> replay(RoadMapDto roadmap) {
+        return Flux.fromIterable(roadmap.getStages())
+                .map(RoadmapStreamEvent::stage)
+                .concatWithValues(RoadmapStreamEvent.complete(roadmap));
+    }
+
+    // An open breaker is checked before queueing, so callers are not made to wait their turn only to be refused
+    private Mono<RoadMapDto> scheduled(Profile profile, String flow) {
+        return Mono.defer(() -> {
+            ollamaCircuitBreaker.rejectIfOpen();
+            return scheduler.schedule(flow, () -> delegate.generateRoadmapAsync(profile));
+        });
+    }
+
+    private Flux<RoadmapStreamEvent> scheduledStream(Profile profile, String flow) {
+        return Flux.defer(() -> {
+            ollamaCircuitBreaker.rejectIfOpen();
+            return scheduler.scheduleMany(flow, () -> delegate.streamRoadmap(profile));
+        });
+    }
+
+    private RoadMapDto personalise(Template template, Profile profile) {
+        RoadMapDto roadmap = personalise(template.json(), profile);
+        roadmap.setProfileEmbedding(template.embedding());
+        return roadmap;
+    }
+
+    // Every caller gets its own copy with its own ids, the cached document is never handed out directly
+    private RoadMapDto personalise(String json, Profile profile) {
+        RoadMapDto roadmap;
+        try {
+            roadmap = objectMapper.readValue(json, RoadMapDto.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to deserialize cached roadmap", e);
+        }
+
+        roadmap.setRoadmapId(UUID.randomUUID().toString());
+        roadmap.setUserId(profile.getUserId() != null ? profile.getUserId().toString() : null);
+        roadmap.setCreatedAt(OffsetDateTime.now());
+        recordProfile(roadmap, profile);
+        return roadmap;
+    }
+
+    // The template may have been written for a slightly different profile, record the one the roadmap is now for
+    private static void recordProfile(RoadMapDto roadmap, Profile profile) {
+        if (roadmap.getGenerationDetails() == null) {
+            roadmap.setGenerationDetails(new GenerationDetails());
+        }
+        roadmap.getGenerationDetails().setProfile(ProfileSnapshot.of(profile));
+    }
+
+    private String await(CompletableFuture<String> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String write(RoadMapDto roadmap) {
+        try {
+            return objectMapper.writeValueAsString(roadmap);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize roadmap for the cache", e);
+        }
+    }
+
+    String cacheKey(Profile profile) {
+        String canonical = aiModel + "\n"
+                + normalise(profile.getGoalTitle()) + "\n"
+                + normalise(profile.getSkills()) + "\n"
+                + normalise(profile.getInterests());
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String normalise(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Order and duplicates in the skill lists do not change the roadmap the model writes
+    private static String normalise(List<String> values) {
+        if (values == null) {
+            return "";
+        }
+        TreeSet<String> normalised = new TreeSet<>();
+        for (String value : values) {
+            String item = normalise(value);
+            if (!item.isEmpty()) {
+                normalised.add(item);
+            }
+        }
+        return String.join(",", normalised);
+    }
+}
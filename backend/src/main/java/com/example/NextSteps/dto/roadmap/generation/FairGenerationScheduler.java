@@ -0,0 +1,241 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//Weighted fair queue in front of Ollama. Only max-concurrency generations run at once, and when they are all busy the
+//next slot goes to the waiting generation with the smallest virtual finish time rather than the oldest one. Each user
+//is a flow whose generations are stamped max(virtual time, the flow's last stamp) + 1/weight, so a user with ten queued
+//generations is served alternately with a user who has one instead of ahead of them.
+//Work with no user behind it (batches, queued jobs) shares a single background flow with its own weight.
+@Component
+public class FairGenerationScheduler {
+
+    public static final String BACKGROUND_FLOW = "background";
+    private static final String FLOW_CONTEXT_KEY = FairGenerationScheduler.class.getName() + ".flow";
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+            Comparator.comparingDouble((Waiter waiter) -> waiter.finishTag).thenComparingLong(waiter -> waiter.sequence));
+    private final Map<String, Flow> flows = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int available;
+
+    private final int maxQueued;
+    private final double userWeight;
+    private final double backgroundWeight;
+    private final int retryAfterSeconds;
+
+    private final Timer queueWait;
+    private final Counter rejections;
+
+    private static final class Flow {
+        private double lastFinish;
+        private int queued;
+    }
+
+    private final class Waiter {
+        private final String flow;
+        private final double finishTag;
+        private final long sequence;
+        private final MonoSink<Permit> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final Permit permit = new Permit();
+
+        private Waiter(String flow, double finishTag, long sequence, MonoSink<Permit> sink) {
+            this.flow = flow;
+            this.finishTag = finishTag;
+            this.sequence = sequence;
+            this.sink = sink;
+        }
+    }
+
+    //One running generation. Releasing it more than once is harmless.
+    public final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            lock.lock();
+            try {
+                available++;
+            } finally {
+                lock.unlock();
+            }
+            dispatch();
+        }
+    }
+
+    public FairGenerationScheduler(MeterRegistry meterRegistry,
+                                   @Value("${ai.fairness.max-concurrency:4}") int maxConcurrency,
+                                   @Value("${ai.fairness.max-queued:1000}") int maxQueued,
+                                   @Value("${ai.fairness.user-weight:1.0}") double userWeight,
+                                   @Value("${ai.fairness.background-weight:1.0}") double backgroundWeight,
+                                   @Value("${ai.fairness.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.available = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.userWeight = userWeight;
+        this.backgroundWeight = backgroundWeight;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.queueWait = Timer.builder("roadmap.fair.queue.wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections = meterRegistry.counter("roadmap.fair.rejected");
+        Gauge.builder("roadmap.fair.queued", this, FairGenerationScheduler::queued).register(meterRegistry);
+        Gauge.builder("roadmap.fair.flows", this, FairGenerationScheduler::activeFlows).register(meterRegistry);
+    }
+
+    //The flow of the current request, taken from the security context so it must be read on the request thread
+    public static String currentFlow() {
+        return GenerationRateLimiter.currentSubject().orElse(BACKGROUND_FLOW);
+    }
+
+    //For reactive callers whose generation is subscribed on another thread than the request's
+    public static Context flowContext(String flow) {
+        return Context.of(FLOW_CONTEXT_KEY, flow);
+    }
+
+    public Mono<Permit> acquire(String flow) {
+        return Mono.create(sink -> {
+            Waiter waiter = null;
+            lock.lock();
+            try {
+                if (waiting.size() < maxQueued) {
+                    Flow state = flows.computeIfAbsent(flow, key -> new Flow());
+                    state.lastFinish = Math.max(virtualTime, state.lastFinish) + 1 / weight(flow);
+                    state.queued++;
+                    waiter = new Waiter(flow, state.lastFinish, sequence++, sink);
+                    waiting.add(waiter);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (waiter == null) {
+                rejections.increment();
+                sink.error(new GenerationRejectedException(
+                        "Too many roadmap generations queued, please try again shortly", retryAfterSeconds));
+                return;
+            }
+            Waiter queued = waiter;
+            sink.onCancel(() -> cancel(queued));
+            dispatch();
+        });
+    }
+
+    //Holds a slot while the work runs. The flow is read from the subscriber context first, falling back to the one given.
+    public <T> Mono<T> schedule(String flow, Supplier<Mono<T>> work) {
+        return Mono.deferContextual(context -> Mono.usingWhen(
+                acquire(context.getOrDefault(FLOW_CONTEXT_KEY, flow)),
+                permit -> work.get(),
+                permit -> Mono.fromRunnable(permit::release)));
+    }
+
+    public <T> Flux<T> scheduleMany(String flow, Supplier<Flux<T>> work) {
+        return Flux.deferContextual(context -> Flux.usingWhen(
+                acquire(context.getOrDefault(FLOW_CONTEXT_KEY, flow)),
+                permit -> work.get(),
+                permit -> Mono.fromRunnable(permit::release)));
+    }
+
+    private void dispatch() {
+        List<Waiter> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            while (available > 0 && !waiting.isEmpty()) {
+                Waiter next = waiting.poll();
+                virtualTime = next.finishTag;
+
+                // The flow's last stamp equals the virtual time now, so a flow with nothing queued can be forgotten
+                Flow state = flows.get(next.flow);
+                if (--state.queued == 0) {
+                    flows.remove(next.flow);
+                }
+
+                if (next.state.compareAndSet(WAITING, GRANTED)) {
+                    available--;
+                    granted.add(next);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Waiter waiter : granted) {
+            queueWait.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    private void cancel(Waiter waiter) {
+        if (waiter.state.compareAndSet(WAITING, CANCELLED)) {
+            lock.lock();
+            try {
+                // Already polled by a dispatch that lost the race, which counted it out of its flow
+                if (waiting.remove(waiter)) {
+                    Flow state = flows.get(waiter.flow);
+                    if (--state.queued == 0) {
+                        flows.remove(waiter.flow);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            // Granted just as the caller gave up, the sink drops the permit so it is handed back here
+            waiter.permit.release();
+        }
+    }
+
+    private double weight(String flow) {
+        return BACKGROUND_FLOW.equals(flow) ? backgroundWeight : userWeight;
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int activeFlows() {
+        lock.lock();
+        try {
+            return flows.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
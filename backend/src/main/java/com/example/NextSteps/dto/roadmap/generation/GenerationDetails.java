@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -14,5 +15,14 @@ public class GenerationDetails {
     private String model;
     private String prompt;
     private OffsetDateTime generatedAt;
+    private GenerationTimings timings;
+    //Set when the roadmap was adapted from the nearest existing one instead of generated
+    private String reusedFromRoadmapId;
+    private Double similarity;
+    //What the roadmap was last written for, compared against the current profile when it is regenerated
+    private ProfileSnapshot profile;
+    //Set by an incremental regeneration, the stages it rewrote
+    private List<String> regeneratedStageIds;
+    private OffsetDateTime regeneratedAt;
 }
 
@@ -0,0 +1,128 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//One timer per pipeline phase (roadmap.generation.phase{phase=...}) so a slow generation can be pinned on
+//model load, prompt size or decoding rather than just showing up as one long upstream call
+@Component
+public class GenerationMetrics {
+
+    public static final String PROMPT_BUILD = "prompt_build";
+    public static final String UPSTREAM = "upstream";
+    public static final String MODEL_LOAD = "model_load";
+    public static final String PROMPT_EVAL = "prompt_eval";
+    public static final String TOKEN_GENERATION = "token_generation";
+    public static final String PARSING = "parsing";
+    public static final String VALIDATION = "validation";
+    public static final String PERSISTENCE = "persistence";
+
+    public static final String FIRST_PASS = "first_pass";
+    public static final String REPAIRED = "repaired";
+    public static final String FAILED = "failed";
+
+    private final MeterRegistry meterRegistry;
+    private final Tags tags;
+
+    private final DistributionSummary promptTokens;
+    private final DistributionSummary generatedTokens;
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> outcomeCounters = new ConcurrentHashMap<>();
+    private final DistributionSummary repairAttempts;
+    private final Counter stageRetries;
+
+    // Double bits, Gauge reads it through a function so the value can be swapped without re-registering
+    private final AtomicLong lastTokensPerSecond = new AtomicLong(Double.doubleToLongBits(0));
+
+    public GenerationMetrics(MeterRegistry meterRegistry, String aiModel) {
+        this.meterRegistry = meterRegistry;
+        this.tags = Tags.of("model", aiModel, "provider", Provider.OLLAMA.name());
+
+        this.promptTokens = DistributionSummary.builder("roadmap.generation.tokens")
+                .tags(tags.and("type", "prompt"))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.generatedTokens = DistributionSummary.builder("roadmap.generation.tokens")
+                .tags(tags.and("type", "generated"))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.repairAttempts = DistributionSummary.builder("roadmap.generation.repairs")
+                .tags(tags)
+                .register(meterRegistry);
+        this.stageRetries = Counter.builder("roadmap.generation.stage.retries")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("roadmap.generation.tokens.per.second", lastTokensPerSecond, bits -> Double.longBitsToDouble(bits.get()))
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    //Records the time since startedNanos against the phase and returns it in milliseconds
+    public long recordPhase(String phase, long startedNanos) {
+        long elapsed = System.nanoTime() - startedNanos;
+        phaseTimer(phase).record(elapsed, TimeUnit.NANOSECONDS);
+        return TimeUnit.NANOSECONDS.toMillis(elapsed);
+    }
+
+    public void recordOllamaTimings(OllamaResponse response, GenerationTimings timings) {
+        timings.setTotalMs(recordNanos(null, response.totalDuration()));
+        timings.setModelLoadMs(recordNanos(MODEL_LOAD, response.loadDuration()));
+        timings.setPromptEvalMs(recordNanos(PROMPT_EVAL, response.promptEvalDuration()));
+        timings.setTokenGenerationMs(recordNanos(TOKEN_GENERATION, response.evalDuration()));
+
+        if (response.promptEvalCount() != null) {
+            promptTokens.record(response.promptEvalCount());
+            timings.setPromptTokens(response.promptEvalCount());
+        }
+        if (response.evalCount() != null) {
+            generatedTokens.record(response.evalCount());
+            timings.setGeneratedTokens(response.evalCount());
+
+            if (response.evalDuration() != null && response.evalDuration() > 0) {
+                double tokensPerSecond = response.evalCount() / (response.evalDuration() / 1_000_000_000.0);
+                lastTokensPerSecond.set(Double.doubleToLongBits(tokensPerSecond));
+                timings.setTokensPerSecond(tokensPerSecond);
+            }
+        }
+    }
+
+    //First-pass success rate is roadmap.generation.outcome{outcome=first_pass} over the sum of all outcomes
+    public void recordOutcome(String outcome, int repairs) {
+        outcomeCounters.computeIfAbsent(outcome, name -> Counter.builder("roadmap.generation.outcome")
+                        .tags(tags.and("outcome", name))
+                        .register(meterRegistry))
+                .increment();
+        repairAttempts.record(repairs);
+    }
+
+    public void recordStageRetry() {
+        stageRetries.increment();
+    }
+
+    private Long recordNanos(String phase, Long nanos) {
+        if (nanos == null) {
+            return null;
+        }
+        if (phase != null) {
+            phaseTimer(phase).record(nanos, TimeUnit.NANOSECONDS);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return phaseTimers.computeIfAbsent(phase, name -> Timer.builder("roadmap.generation.phase")
+                .tags(tags.and("phase", name))
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
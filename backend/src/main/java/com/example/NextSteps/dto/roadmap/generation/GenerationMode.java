@@ -0,0 +1,6 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+public enum GenerationMode {
+    SINGLE,
+    STAGED
+}
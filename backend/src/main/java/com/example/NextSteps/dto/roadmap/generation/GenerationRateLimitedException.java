@@ -0,0 +1,9 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+//The caller has used up their own generation budget, as opposed to the backend being busy. Answered with 429.
+public class GenerationRateLimitedException extends GenerationRejectedException {
+
+    public GenerationRateLimitedException(String message, int retryAfterSeconds) {
+        super(message, retryAfterSeconds);
+    }
+}
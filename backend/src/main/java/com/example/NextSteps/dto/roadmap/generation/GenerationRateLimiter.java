@@ -0,0 +1,106 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+//A token bucket per user, keyed by the JWT subject, so one user regenerating in a loop runs out of their own budget
+//instead of everyone's Ollama time. Each bucket is an immutable snapshot swapped with compareAndSet, so checks for
+//different users never contend and checks for the same user never block. Full buckets are swept, memory follows
+//the users active in the last refill period rather than every user who ever generated.
+@Component
+public class GenerationRateLimiter {
+
+    private record Bucket(double tokens, long refilledAt) {
+    }
+
+    private final ConcurrentHashMap<String, AtomicReference<Bucket>> buckets = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private final Counter allowed;
+    private final Counter limited;
+
+    public GenerationRateLimiter(MeterRegistry meterRegistry,
+                                 @Value("${ai.rate-limit.enabled:true}") boolean enabled,
+                                 @Value("${ai.rate-limit.capacity:3}") int capacity,
+                                 @Value("${ai.rate-limit.refill-per-minute:6}") int refillPerMinute) {
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+
+        this.allowed = meterRegistry.counter("roadmap.rate.limit", "result", "allowed");
+        this.limited = meterRegistry.counter("roadmap.rate.limit", "result", "limited");
+        Gauge.builder("roadmap.rate.limit.buckets", buckets, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    //Takes one generation from the current user's bucket. Requests without a user are left to the other limits.
+    public void acquire() {
+        Optional<String> subject = currentSubject();
+        if (enabled && subject.isPresent()) {
+            acquire(subject.get());
+        }
+    }
+
+    public void acquire(String subject) {
+        AtomicReference<Bucket> bucket = buckets.computeIfAbsent(subject,
+                key -> new AtomicReference<>(new Bucket(capacity, System.nanoTime())));
+
+        while (true) {
+            Bucket current = bucket.get();
+            long now = System.nanoTime();
+            double tokens = refilled(current, now);
+
+            if (tokens < 1) {
+                limited.increment();
+                double waitSeconds = (1 - tokens) / tokensPerNano / TimeUnit.SECONDS.toNanos(1);
+                throw new GenerationRateLimitedException(
+                        "Too many roadmap generations, please try again shortly",
+                        (int) Math.max(1, Math.ceil(waitSeconds)));
+            }
+            if (bucket.compareAndSet(current, new Bucket(tokens - 1, now))) {
+                allowed.increment();
+                return;
+            }
+        }
+    }
+
+    //A full bucket is the same as no bucket. A generation racing the sweep may land on the removed one and go
+    //uncounted, which at worst gives that user one extra generation.
+    @Scheduled(fixedDelayString = "${ai.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> refilled(bucket.get(), now) >= capacity);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private double refilled(Bucket bucket, long now) {
+        return Math.min(capacity, bucket.tokens() + (now - bucket.refilledAt()) * tokensPerNano);
+    }
+
+    //JwtAuthenticationFilter sets the user's id as the principal
+    public static Optional<String> currentSubject() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || authentication instanceof AnonymousAuthenticationToken
+                || !(authentication.getPrincipal() instanceof String subject)) {
+            return Optional.empty();
+        }
+        return Optional.of(subject);
+    }
+}
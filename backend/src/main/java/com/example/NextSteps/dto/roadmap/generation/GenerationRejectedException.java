@@ -0,0 +1,16 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+//Thrown instead of queueing a generation that could not start in time, callers answer with Retry-After
+public class GenerationRejectedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public GenerationRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import lombok.Data;
+
+//Where the time went for one generation, stored with the roadmap so slow ones can be explained afterwards
+@Data
+public class GenerationTimings {
+
+    private Long promptBuildMs;
+    private Long upstreamMs;
+    private Long parseMs;
+    private Long validationMs;
+    private Integer repairAttempts;
+    // Outline and stage calls generated again in staged mode, not repairs
+    private Integer stageRetries;
+
+    // Reported by Ollama
+    private Long totalMs;
+    private Long modelLoadMs;
+    private Long promptEvalMs;
+    private Long tokenGenerationMs;
+    private Integer promptTokens;
+    private Integer generatedTokens;
+    private Double tokensPerSecond;
+}
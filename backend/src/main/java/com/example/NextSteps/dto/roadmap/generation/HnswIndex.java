@@ -0,0 +1,410 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Hierarchical navigable small world graph over unit vectors, so cosine similarity is a dot product. Every vector sits
+//on layer 0 and on each layer above with probability 1/m; a search walks greedily down from the sparse top layers and
+//only widens to ef candidates on layer 0, which keeps lookups logarithmic rather than a scan of every roadmap.
+//Searches share a read lock, inserts take the write lock. Removal leaves the node in the graph for routing and only
+//hides it from results, until removed nodes pass a fifth of the graph and a fresh one is built from the live ones on
+//the compactor, off the caller's thread. Changes made meanwhile are replayed onto it before it replaces the old graph.
+public class HnswIndex {
+
+    private static final double MAX_REMOVED_FRACTION = 0.2;
+
+    public record Match(UUID id, double similarity) {
+    }
+
+    private static final class Node {
+        private final UUID id;
+        private final float[] vector;
+        private final int[][] links;
+        private final int[] linkCounts;
+        private boolean removed;
+
+        private Node(UUID id, float[] vector, int level, int m) {
+            this.id = id;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                // One spare slot, a neighbour is added before the list is pruned back down
+                links[layer] = new int[(layer == 0 ? 2 * m : m) + 1];
+            }
+        }
+
+        private int level() {
+            return links.length - 1;
+        }
+    }
+
+    private record Candidate(int node, double similarity) {
+    }
+
+    // An add or a remove made while a compaction was building, a null vector is a removal
+    private record Change(UUID id, float[] unit) {
+    }
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingDouble(Candidate::similarity).reversed();
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingDouble(Candidate::similarity);
+
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Executor compactor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Graph graph;
+    // Not null while a compaction is building, guarded by the write lock
+    private List<Change> changesDuringCompaction;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, long seed, Executor compactor) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.compactor = compactor;
+        this.graph = new Graph(new SplittableRandom(seed));
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return graph.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Live and removed nodes alike, which is what the graph holds in memory
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return graph.nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Adding an id that is already present replaces its vector
+    public void add(UUID id, float[] vector) {
+        float[] unit = normalised(vector);
+        Runnable compaction;
+        lock.writeLock().lock();
+        try {
+            graph.add(id, unit);
+            if (changesDuringCompaction != null) {
+                changesDuringCompaction.add(new Change(id, unit));
+            }
+            compaction = compactionIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        schedule(compaction);
+    }
+
+    public void remove(UUID id) {
+        Runnable compaction;
+        lock.writeLock().lock();
+        try {
+            if (!graph.remove(id)) {
+                return;
+            }
+            if (changesDuringCompaction != null) {
+                changesDuringCompaction.add(new Change(id, null));
+            }
+            compaction = compactionIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        schedule(compaction);
+    }
+
+    // Snapshots the live nodes for a compaction when one is due and none is building. Caller holds the write lock.
+    private Runnable compactionIfNeeded() {
+        if (changesDuringCompaction != null
+                || graph.nodes.size() - graph.live <= graph.nodes.size() * MAX_REMOVED_FRACTION) {
+            return null;
+        }
+        List<Node> survivors = graph.nodes.stream().filter(node -> !node.removed).toList();
+        // Its own random, the old graph's stays with the inserts still made under the lock
+        SplittableRandom random = graph.random.split();
+        changesDuringCompaction = new ArrayList<>();
+        return () -> compact(survivors, random);
+    }
+
+    private void schedule(Runnable compaction) {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compactor.execute(compaction);
+        } catch (RejectedExecutionException e) {
+            // Tried again on the next add or remove
+            finishCompaction(null);
+        }
+    }
+
+    // Node ids and vectors never change, so the survivors are read without the lock
+    private void compact(List<Node> survivors, SplittableRandom random) {
+        Graph fresh = null;
+        try {
+            Graph building = new Graph(random);
+            for (Node node : survivors) {
+                building.insert(node.id, node.vector);
+            }
+            fresh = building;
+        } finally {
+            finishCompaction(fresh);
+        }
+    }
+
+    private void finishCompaction(Graph fresh) {
+        lock.writeLock().lock();
+        try {
+            if (fresh != null) {
+                for (Change change : changesDuringCompaction) {
+                    if (change.unit() != null) {
+                        fresh.add(change.id(), change.unit());
+                    } else {
+                        fresh.remove(change.id());
+                    }
+                }
+                graph = fresh;
+            }
+            changesDuringCompaction = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Up to k live vectors, most similar first
+    public List<Match> search(float[] query, int k, int ef) {
+        float[] unit = normalised(query);
+        lock.readLock().lock();
+        try {
+            return graph.search(unit, k, ef);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The nodes and links themselves, only touched under the index's lock or by the compaction that is building it
+    private final class Graph {
+
+        private final SplittableRandom random;
+        private final List<Node> nodes = new ArrayList<>();
+        private final Map<UUID, Integer> positions = new HashMap<>();
+        private int entryPoint = -1;
+        private int live;
+
+        private Graph(SplittableRandom random) {
+            this.random = random;
+        }
+
+        private void add(UUID id, float[] unit) {
+            Integer existing = positions.get(id);
+            if (existing != null) {
+                markRemoved(nodes.get(existing));
+            }
+            insert(id, unit);
+        }
+
+        private boolean remove(UUID id) {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return false;
+            }
+            markRemoved(nodes.get(position));
+            return true;
+        }
+
+        private void insert(UUID id, float[] unit) {
+            int level = (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            int position = nodes.size();
+            Node node = new Node(id, unit, level, m);
+            nodes.add(node);
+            positions.put(id, position);
+            live++;
+
+            if (entryPoint < 0) {
+                entryPoint = position;
+                return;
+            }
+
+            int current = entryPoint;
+            int topLevel = nodes.get(entryPoint).level();
+            for (int layer = topLevel; layer > level; layer--) {
+                current = greedyClosest(unit, current, layer);
+            }
+            for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+                List<Candidate> candidates = searchLayer(unit, current, efConstruction, layer);
+                int maxLinks = layer == 0 ? 2 * m : m;
+                for (Candidate neighbour : candidates.subList(0, Math.min(m, candidates.size()))) {
+                    link(position, neighbour.node(), layer, maxLinks);
+                    link(neighbour.node(), position, layer, maxLinks);
+                }
+                current = candidates.get(0).node();
+            }
+
+            if (level > topLevel) {
+                entryPoint = position;
+            }
+        }
+
+        private List<Match> search(float[] unit, int k, int ef) {
+            if (entryPoint < 0 || live == 0) {
+                return List.of();
+            }
+
+            int current = entryPoint;
+            for (int layer = nodes.get(entryPoint).level(); layer > 0; layer--) {
+                current = greedyClosest(unit, current, layer);
+            }
+
+            List<Match> matches = new ArrayList<>(k);
+            for (Candidate candidate : searchLayer(unit, current, Math.max(ef, k), 0)) {
+                Node node = nodes.get(candidate.node());
+                if (!node.removed) {
+                    matches.add(new Match(node.id, candidate.similarity()));
+                    if (matches.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        }
+
+        private int greedyClosest(float[] query, int start, int layer) {
+            int current = start;
+            double best = similarity(query, nodes.get(current).vector);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                Node node = nodes.get(current);
+                for (int i = 0; i < node.linkCounts[layer]; i++) {
+                    int neighbour = node.links[layer][i];
+                    double candidate = similarity(query, nodes.get(neighbour).vector);
+                    if (candidate > best) {
+                        best = candidate;
+                        current = neighbour;
+                        improved = true;
+                    }
+                }
+            }
+            return current;
+        }
+
+        // Best-first expansion keeping the ef most similar nodes seen, returned most similar first
+        private List<Candidate> searchLayer(float[] query, int start, int ef, int layer) {
+            BitSet visited = new BitSet(nodes.size());
+            PriorityQueue<Candidate> frontier = new PriorityQueue<>(BEST_FIRST);
+            PriorityQueue<Candidate> results = new PriorityQueue<>(WORST_FIRST);
+
+            Candidate first = new Candidate(start, similarity(query, nodes.get(start).vector));
+            visited.set(start);
+            frontier.add(first);
+            results.add(first);
+
+            while (!frontier.isEmpty()) {
+                Candidate closest = frontier.poll();
+                if (results.size() >= ef && closest.similarity() < results.peek().similarity()) {
+                    break;
+                }
+                Node node = nodes.get(closest.node());
+                for (int i = 0; i < node.linkCounts[layer]; i++) {
+                    int neighbour = node.links[layer][i];
+                    if (visited.get(neighbour)) {
+                        continue;
+                    }
+                    visited.set(neighbour);
+                    Candidate candidate = new Candidate(neighbour, similarity(query, nodes.get(neighbour).vector));
+                    if (results.size() < ef || candidate.similarity() > results.peek().similarity()) {
+                        frontier.add(candidate);
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+
+            List<Candidate> ordered = new ArrayList<>(results);
+            ordered.sort(BEST_FIRST);
+            return ordered;
+        }
+
+        // A full list keeps its maxLinks most similar neighbours
+        private void link(int from, int to, int layer, int maxLinks) {
+            Node node = nodes.get(from);
+            int[] links = node.links[layer];
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                if (links[i] == to) {
+                    return;
+                }
+            }
+            links[node.linkCounts[layer]++] = to;
+            if (node.linkCounts[layer] <= maxLinks) {
+                return;
+            }
+
+            Candidate[] ranked = new Candidate[node.linkCounts[layer]];
+            for (int i = 0; i < ranked.length; i++) {
+                ranked[i] = new Candidate(links[i], similarity(node.vector, nodes.get(links[i]).vector));
+            }
+            Arrays.sort(ranked, BEST_FIRST);
+            for (int i = 0; i < maxLinks; i++) {
+                links[i] = ranked[i].node();
+            }
+            node.linkCounts[layer] = maxLinks;
+        }
+
+        private void markRemoved(Node node) {
+            if (!node.removed) {
+                node.removed = true;
+                live--;
+            }
+        }
+    }
+
+    private float[] normalised(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    private static double similarity(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.example.NextSteps.dto.roadmap.stage.StageProgressTracker;
+import com.example.NextSteps.entities.Profile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Brings an existing roadmap up to date with its user's profile by rewriting only the stages the change touches
+//(see ProfileChange), one Ollama call per stage through the fair queue, so the cost grows with the change rather than
+//the roadmap. Other stages, and every course the user has started or completed, are kept as they are.
+//A new goal changes the whole plan, so that, or a roadmap saved before profiles were recorded with it, is generated
+//again in full with the statuses carried over to the courses that are still in it.
+@Component
+public class IncrementalRoadmapRegenerator {
+
+    private final AiRoadMapProvider aiRoadMapProvider;
+    private final OllamaRoadMapProvider ollamaRoadMapProvider;
+    private final FairGenerationScheduler scheduler;
+    private final OllamaCircuitBreaker ollamaCircuitBreaker;
+    private final int timeOut;
+    private final int stageParallelism;
+
+    private final Counter incremental;
+    private final Counter full;
+    private final Counter unchanged;
+    private final DistributionSummary rewrittenStages;
+
+    public IncrementalRoadmapRegenerator(AiRoadMapProvider aiRoadMapProvider,
+                                         OllamaRoadMapProvider ollamaRoadMapProvider,
+                                         FairGenerationScheduler scheduler,
+                                         OllamaCircuitBreaker ollamaCircuitBreaker,
+                                         MeterRegistry meterRegistry,
+                                         int timeOut,
+                                         @Value("${ai.generation.stage-parallelism:4}") int stageParallelism) {
+        this.aiRoadMapProvider = aiRoadMapProvider;
+        this.ollamaRoadMapProvider = ollamaRoadMapProvider;
+        this.scheduler = scheduler;
+        this.ollamaCircuitBreaker = ollamaCircuitBreaker;
+        this.timeOut = timeOut;
+        this.stageParallelism = stageParallelism;
+
+        this.incremental = meterRegistry.counter("roadmap.regeneration", "mode", "incremental");
+        this.full = meterRegistry.counter("roadmap.regeneration", "mode", "full");
+        this.unchanged = meterRegistry.counter("roadmap.regeneration", "mode", "unchanged");
+        this.rewrittenStages = DistributionSummary.builder("roadmap.regeneration.stages")
+                .register(meterRegistry);
+    }
+
+    //The roadmap as it should now be stored, keeping its id. Call on the request thread so the fair queue sees the user.
+    public Mono<RoadMapDto> regenerate(RoadMapDto existing, Profile profile) {
+        String flow = FairGenerationScheduler.currentFlow();
+        ProfileSnapshot previous = existing.getGenerationDetails() != null
+                ? existing.getGenerationDetails().getProfile()
+                : null;
+
+        ProfileChange change = previous != null ? ProfileChange.between(previous, profile) : null;
+        if (change == null || change.goalChanged()) {
+            full.increment();
+            return aiRoadMapProvider.generateRoadmapAsync(profile)
+                    .map(fresh -> carryOver(existing, fresh, profile));
+        }
+
+        List<Stage> affected = change.affectedStages(existing.getStages());
+        if (affected.isEmpty()) {
+            unchanged.increment();
+            return Mono.just(finish(existing, profile, List.of()));
+        }
+
+        incremental.increment();
+        rewrittenStages.record(affected.size());
+        List<String> changes = change.describe();
+        return Flux.fromIterable(affected)
+                .flatMap(stage -> rewrite(flow, profile, existing, stage, changes), stageParallelism)
+                .collectMap(Stage::getStageId)
+                .timeout(Duration.ofSeconds(timeOut),
+                        Mono.error(() -> new RuntimeException("Timed out waiting for Ollama after " + timeOut + "s")))
+                .map(rewritten -> {
+                    List<Stage> stages = new ArrayList<>();
+                    for (Stage stage : existing.getStages()) {
+                        stages.add(rewritten.getOrDefault(stage.getStageId(), stage));
+                    }
+                    existing.setStages(stages);
+                    return finish(existing, profile, affected.stream().map(Stage::getStageId).toList());
+                });
+    }
+
+    // Each stage takes its own slot, so a user rewriting one stage waits behind less than one generating a roadmap
+    private Mono<Stage> rewrite(String flow, Profile profile, RoadMapDto roadmap, Stage stage, List<String> changes) {
+        return Mono.defer(() -> {
+            ollamaCircuitBreaker.rejectIfOpen();
+            return scheduler.schedule(flow, () -> ollamaRoadMapProvider.rewriteStage(profile, roadmap, stage, changes));
+        });
+    }
+
+    private RoadMapDto finish(RoadMapDto roadmap, Profile profile, List<String> rewrittenStageIds) {
+        OffsetDateTime now = OffsetDateTime.now();
+        if (roadmap.getGenerationDetails() == null) {
+            roadmap.setGenerationDetails(new GenerationDetails());
+        }
+        roadmap.getGenerationDetails().setProfile(ProfileSnapshot.of(profile));
+        roadmap.getGenerationDetails().setRegeneratedStageIds(rewrittenStageIds);
+        roadmap.getGenerationDetails().setRegeneratedAt(now);
+        roadmap.setUpdatedAt(now);
+        return roadmap;
+    }
+
+    // Matched on the course title, a course the new plan no longer has loses its status along with it
+    private RoadMapDto carryOver(RoadMapDto existing, RoadMapDto fresh, Profile profile) {
+        Map<String, CourseStatus> statuses = new HashMap<>();
+        for (Stage stage : existing.getStages()) {
+            for (Course course : stage.getItems()) {
+                if (course.getStatus() != CourseStatus.NOT_STARTED && course.getTitle() != null) {
+                    statuses.put(course.getTitle().trim().toLowerCase(Locale.ROOT), course.getStatus());
+                }
+            }
+        }
+
+        List<String> stageIds = new ArrayList<>();
+        for (Stage stage : fresh.getStages()) {
+            for (Course course : stage.getItems()) {
+                course.setStatus(statuses.getOrDefault(course.getTitle().trim().toLowerCase(Locale.ROOT),
+                        CourseStatus.NOT_STARTED));
+            }
+            stage.setProgress(StageProgressTracker.of(stage.getItems()));
+            stageIds.add(stage.getStageId());
+        }
+
+        fresh.setRoadmapId(existing.getRoadmapId());
+        fresh.setUserId(existing.getUserId());
+        fresh.setCreatedAt(existing.getCreatedAt());
+        return finish(fresh, profile, stageIds);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//Caps the calls in flight to Ollama, counting every stage call and repair prompt rather than whole generations.
+//A call over the cap is shed straight away, Ollama only queues extra calls internally where they sit out the timeout.
+@Component
+public class OllamaBulkhead {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final int maxConcurrentCalls;
+    private final int retryAfterSeconds;
+    private final Counter rejected;
+
+    public OllamaBulkhead(MeterRegistry meterRegistry,
+                          @Value("${ai.ollama.bulkhead.max-concurrent-calls:16}") int maxConcurrentCalls,
+                          @Value("${ai.ollama.bulkhead.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.rejected = meterRegistry.counter("ollama.bulkhead.rejected");
+        Gauge.builder("ollama.bulkhead.active", active, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public <T> Mono<T> protect(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(rejection());
+            }
+            try {
+                return call.get().doFinally(signal -> active.decrementAndGet());
+            } catch (RuntimeException e) {
+                active.decrementAndGet();
+                return Mono.error(e);
+            }
+        });
+    }
+
+    //For optional extra calls such as a hedge: empty rather than rejected when there is no spare permit
+    public <T> Mono<T> protectIfFree(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.empty();
+            }
+            try {
+                return call.get().doFinally(signal -> active.decrementAndGet());
+            } catch (RuntimeException e) {
+                active.decrementAndGet();
+                return Mono.error(e);
+            }
+        });
+    }
+
+    public <T> Flux<T> protectMany(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            if (!tryAcquire()) {
+                return Flux.error(rejection());
+            }
+            try {
+                return call.get().doFinally(signal -> active.decrementAndGet());
+            } catch (RuntimeException e) {
+                active.decrementAndGet();
+                return Flux.error(e);
+            }
+        });
+    }
+
+    public int active() {
+        return active.get();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = active.get();
+            if (current >= maxConcurrentCalls) {
+                return false;
+            }
+            if (active.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private GenerationRejectedException rejection() {
+        rejected.increment();
+        return new GenerationRejectedException("Ollama is at capacity, please try again shortly", retryAfterSeconds);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//Stops sending work to Ollama once too many of the last window-size calls failed or took longer than slow-call-ms.
+//While open every call is refused straight away with a retry hint instead of waiting out the full timeout. After
+//open-ms a few probe calls are let through (half-open): if they all succeed the breaker closes, one bad probe opens it again.
+//The per-node health checks in OllamaNodePool catch a node that is down; this catches Ollama being up but overloaded.
+@Slf4j
+@Component
+public class OllamaCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    // Ring buffer over the last window-size calls made while closed
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slows;
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private final Counter rejected;
+    private final Counter opened;
+
+    public OllamaCircuitBreaker(MeterRegistry meterRegistry,
+                                @Value("${ai.ollama.circuit-breaker.window-size:20}") int windowSize,
+                                @Value("${ai.ollama.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                @Value("${ai.ollama.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                @Value("${ai.ollama.circuit-breaker.slow-call-ms:60000}") long slowCallMs,
+                                @Value("${ai.ollama.circuit-breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+                                @Value("${ai.ollama.circuit-breaker.open-ms:30000}") long openMs,
+                                @Value("${ai.ollama.circuit-breaker.half-open-probes:2}") int halfOpenProbes) {
+        this.failedCalls = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.halfOpenProbes = halfOpenProbes;
+
+        this.rejected = meterRegistry.counter("ollama.circuit.rejected");
+        this.opened = meterRegistry.counter("ollama.circuit.opened");
+        for (State candidate : State.values()) {
+            Gauge.builder("ollama.circuit.state", this, breaker -> breaker.getState() == candidate ? 1 : 0)
+                    .tag("state", candidate.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> Mono<T> protect(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            boolean probe = acquirePermission();
+            long started = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return call.get()
+                    .doOnSuccess(value -> finish(done, probe, false, started))
+                    .doOnError(e -> finish(done, probe, true, started))
+                    .doOnCancel(() -> cancelled(done, probe, started));
+        });
+    }
+
+    public <T> Flux<T> protectMany(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            boolean probe = acquirePermission();
+            long started = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return call.get()
+                    .doOnComplete(() -> finish(done, probe, false, started))
+                    .doOnError(e -> finish(done, probe, true, started))
+                    .doOnCancel(() -> cancelled(done, probe, started));
+        });
+    }
+
+    //For callers that would otherwise queue first and only find out the breaker is open once their turn comes
+    public void rejectIfOpen() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAt < openNanos) {
+                throw rejection();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Seconds until the breaker lets a probe through, 0 unless it is open
+    public long secondsUntilProbe() {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                return 0;
+            }
+            long remaining = openNanos - (System.nanoTime() - openedAt);
+            return Math.max(0, (long) Math.ceil(remaining / (double) TimeUnit.SECONDS.toNanos(1)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns whether the call is a half-open probe
+    private boolean acquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openNanos) {
+                    throw rejection();
+                }
+                transition(State.HALF_OPEN);
+                probesInFlight = 0;
+                probeSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight >= halfOpenProbes) {
+                    throw rejection();
+                }
+                probesInFlight++;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finish(AtomicBoolean done, boolean probe, boolean failed, long started) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        boolean slow = System.nanoTime() - started >= slowCallNanos;
+        lock.lock();
+        try {
+            if (probe) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                probesInFlight--;
+                if (failed || slow) {
+                    open();
+                } else if (++probeSuccesses >= halfOpenProbes) {
+                    close();
+                }
+                return;
+            }
+            // A call that started before the breaker opened says nothing about the current state
+            if (state == State.CLOSED) {
+                record(failed, slow);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Given up on by the caller: past the slow threshold it still counts as slow, otherwise it carries no verdict
+    private void cancelled(AtomicBoolean done, boolean probe, long started) {
+        if (System.nanoTime() - started >= slowCallNanos) {
+            finish(done, probe, false, started);
+            return;
+        }
+        if (!done.compareAndSet(false, true) || !probe) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                probesInFlight--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (recorded == failedCalls.length) {
+            failures -= failedCalls[next] ? 1 : 0;
+            slows -= slowCalls[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failedCalls[next] = failed;
+        slowCalls[next] = slow;
+        failures += failed ? 1 : 0;
+        slows += slow ? 1 : 0;
+        next = (next + 1) % failedCalls.length;
+
+        if (recorded >= minimumCalls
+                && (failures * 100 >= failureRateThreshold * recorded || slows * 100 >= slowCallRateThreshold * recorded)) {
+            log.warn("Opening the Ollama circuit breaker, {} of the last {} calls failed and {} were slow",
+                    failures, recorded, slows);
+            open();
+        }
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = System.nanoTime();
+        opened.increment();
+    }
+
+    private void close() {
+        transition(State.CLOSED);
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slows = 0;
+    }
+
+    private void transition(State target) {
+        if (state != target) {
+            log.info("Ollama circuit breaker {} -> {}", state, target);
+            state = target;
+        }
+    }
+
+    private GenerationRejectedException rejection() {
+        rejected.increment();
+        long remaining = state == State.OPEN ? openNanos - (System.nanoTime() - openedAt) : 0;
+        int retryAfterSeconds = (int) Math.max(1, Math.ceil(remaining / (double) TimeUnit.SECONDS.toNanos(1)));
+        return new GenerationRejectedException("Roadmap generation is temporarily unavailable, please try again shortly",
+                retryAfterSeconds);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+//Shows up as ollamaCircuitBreaker under /actuator/health. An open breaker only means generation is unavailable,
+//reads still work, so it gets its own status (mapped to 200) rather than DOWN taking the instance out of rotation.
+@Component
+public class OllamaCircuitBreakerHealthIndicator implements HealthIndicator {
+
+    public static final Status CIRCUIT_OPEN = new Status("CIRCUIT_OPEN");
+    public static final Status CIRCUIT_HALF_OPEN = new Status("CIRCUIT_HALF_OPEN");
+
+    private final OllamaCircuitBreaker ollamaCircuitBreaker;
+    private final OllamaBulkhead ollamaBulkhead;
+
+    public OllamaCircuitBreakerHealthIndicator(OllamaCircuitBreaker ollamaCircuitBreaker, OllamaBulkhead ollamaBulkhead) {
+        this.ollamaCircuitBreaker = ollamaCircuitBreaker;
+        this.ollamaBulkhead = ollamaBulkhead;
+    }
+
+    @Override
+    public Health health() {
+        OllamaCircuitBreaker.State state = ollamaCircuitBreaker.getState();
+        Status status = switch (state) {
+            case CLOSED -> Status.UP;
+            case HALF_OPEN -> CIRCUIT_HALF_OPEN;
+            case OPEN -> CIRCUIT_OPEN;
+        };
+        return Health.status(status)
+                .withDetail("state", state)
+                .withDetail("retryAfterSeconds", ollamaCircuitBreaker.secondsUntilProbe())
+                .withDetail("activeCalls", ollamaBulkhead.active())
+                .build();
+    }
+}
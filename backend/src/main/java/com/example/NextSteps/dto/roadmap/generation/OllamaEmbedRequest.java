@@ -0,0 +1,10 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record OllamaEmbedRequest(
+        String model,
+        String input,
+        @JsonProperty("keep_alive") String keepAlive
+) {
+}
@@ -0,0 +1,8 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+//One embedding per input, /api/embed returns them already L2 normalised
+public record OllamaEmbedResponse(
+        String model,
+        float[][] embeddings
+) {
+}
@@ -0,0 +1,57 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+//One Ollama backend with its own connection pool, plus the bookkeeping the pool routes on
+@Getter
+public class OllamaNode {
+
+    private final String baseUrl;
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile boolean healthy = true;
+
+    public OllamaNode(String baseUrl, WebClient webClient, ConnectionProvider connectionProvider) {
+        this.baseUrl = baseUrl;
+        this.webClient = webClient;
+        this.connectionProvider = connectionProvider;
+    }
+
+    public int outstandingRequests() {
+        return outstanding.get();
+    }
+
+    void acquire() {
+        outstanding.incrementAndGet();
+    }
+
+    void release() {
+        outstanding.decrementAndGet();
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    void recordFailure(int failureThreshold) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            healthy = false;
+        }
+    }
+
+    void markHealthy() {
+        consecutiveFailures.set(0);
+        healthy = true;
+    }
+
+    void markUnhealthy() {
+        healthy = false;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+//Spreads Ollama calls over several backends. Each call goes to the healthy node with the fewest requests in flight.
+//Nodes that keep failing are ejected until a health probe succeeds again.
+//With hedging on, a call that is slower than the configured latency percentile is also sent to a second node,
+//and whichever answers first wins, as long as the bulkhead has a spare permit for it.
+@Slf4j
+public class OllamaNodePool {
+
+    private static final int LATENCY_WINDOW = 256;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    public record Settings(
+            int maxConnections,
+            Duration maxIdleTime,
+            int failureThreshold,
+            Duration probeTimeout,
+            boolean hedgingEnabled,
+            double hedgePercentile
+    ) {
+    }
+
+    private final List<OllamaNode> nodes;
+    private final Settings settings;
+    private final OllamaBulkhead ollamaBulkhead;
+
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int latencyNext;
+
+    private final Counter hedgedRequests;
+
+    public OllamaNodePool(List<String> baseUrls, Settings settings, OllamaBulkhead ollamaBulkhead,
+                          MeterRegistry meterRegistry) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one Ollama base URL is required");
+        }
+        this.settings = settings;
+        this.ollamaBulkhead = ollamaBulkhead;
+        this.nodes = new ArrayList<>();
+
+        for (int i = 0; i < baseUrls.size(); i++) {
+            String baseUrl = baseUrls.get(i);
+            ConnectionProvider connectionProvider = ConnectionProvider.builder("ollama-" + i)
+                    .maxConnections(settings.maxConnections())
+                    .maxIdleTime(settings.maxIdleTime())
+                    .evictInBackground(settings.maxIdleTime())
+                    .metrics(true)
+                    .build();
+            HttpClient httpClient = HttpClient.create(connectionProvider).keepAlive(true);
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(baseUrl)
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .build();
+
+            OllamaNode node = new OllamaNode(baseUrl, webClient, connectionProvider);
+            nodes.add(node);
+
+            Gauge.builder("ollama.node.outstanding", node, OllamaNode::outstandingRequests)
+                    .tag("node", baseUrl)
+                    .register(meterRegistry);
+            Gauge.builder("ollama.node.healthy", node, n -> n.isHealthy() ? 1 : 0)
+                    .tag("node", baseUrl)
+                    .register(meterRegistry);
+        }
+
+        this.hedgedRequests = meterRegistry.counter("ollama.requests.hedged");
+    }
+
+    public List<OllamaNode> getNodes() {
+        return List.copyOf(nodes);
+    }
+
+    public <T> Mono<T> execute(Function<WebClient, Mono<T>> call) {
+        return Mono.defer(() -> {
+            OllamaNode first = select(null);
+
+            // Null with a single node, there is nowhere to hedge to
+            Duration hedgeAfter = hedgeDelay();
+            if (hedgeAfter == null) {
+                return callOn(first, call);
+            }
+
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Mono<T> primary = callOn(first, call).doOnError(primaryError::set);
+
+            // The hedge is one more call on Ollama, so it needs a bulkhead permit of its own and is skipped without one
+            Mono<T> hedge = Mono.delay(hedgeAfter)
+                    .then(ollamaBulkhead.protectIfFree(() -> {
+                        hedgedRequests.increment();
+                        return callOn(select(first), call);
+                    }));
+
+            // The slower call is cancelled, which also closes its connection to Ollama. When neither answers,
+            // firstWithValue wraps the errors in a NoSuchElementException, the caller gets the primary's error instead.
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorMap(NoSuchElementException.class,
+                            e -> primaryError.get() != null ? primaryError.get() : e);
+        });
+    }
+
+    //Streams are never hedged, the caller has already started consuming the first node's tokens
+    public <T> Flux<T> executeMany(Function<WebClient, Flux<T>> call) {
+        return Flux.defer(() -> {
+            OllamaNode node = select(null);
+            node.acquire();
+            return call.apply(node.getWebClient())
+                    .doOnComplete(node::recordSuccess)
+                    .doOnError(e -> recordFailure(node, e))
+                    .doFinally(signal -> node.release());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ai.ollama.health.interval-ms:10000}")
+    public void probe() {
+        for (OllamaNode node : nodes) {
+            node.getWebClient().get()
+                    .uri("/api/tags")
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(settings.probeTimeout())
+                    .subscribe(
+                            response -> {
+                                if (!node.isHealthy()) {
+                                    log.info("Ollama node {} passed its health probe, re-admitting it", node.getBaseUrl());
+                                }
+                                node.markHealthy();
+                            },
+                            error -> {
+                                if (node.isHealthy()) {
+                                    log.warn("Ollama node {} failed its health probe: {}", node.getBaseUrl(), error.getMessage());
+                                }
+                                node.markUnhealthy();
+                            });
+        }
+    }
+
+    public void close() {
+        nodes.forEach(node -> node.getConnectionProvider().dispose());
+    }
+
+    private <T> Mono<T> callOn(OllamaNode node, Function<WebClient, Mono<T>> call) {
+        return Mono.defer(() -> {
+            node.acquire();
+            long started = System.nanoTime();
+            return call.apply(node.getWebClient())
+                    .doOnSuccess(value -> {
+                        recordLatency(Duration.ofNanos(System.nanoTime() - started).toMillis());
+                        node.recordSuccess();
+                    })
+                    .doOnError(e -> recordFailure(node, e))
+                    .doFinally(signal -> node.release());
+        });
+    }
+
+    // A 4xx means our request was wrong (e.g. unknown model), not that the node is unwell
+    private void recordFailure(OllamaNode node, Throwable error) {
+        if (error instanceof WebClientResponseException responseError && responseError.getStatusCode().is4xxClientError()) {
+            return;
+        }
+        node.recordFailure(settings.failureThreshold());
+    }
+
+    //Least outstanding requests among the healthy nodes, ties broken randomly so idle nodes share the load.
+    //If every node is marked unhealthy we still try one rather than failing outright.
+    OllamaNode select(OllamaNode exclude) {
+        List<OllamaNode> candidates = nodes.stream()
+                .filter(OllamaNode::isHealthy)
+                .filter(node -> node != exclude)
+                .toList();
+        if (candidates.isEmpty()) {
+            candidates = nodes.stream().filter(node -> node != exclude).toList();
+        }
+        if (candidates.isEmpty()) {
+            return exclude;
+        }
+
+        int offset = ThreadLocalRandom.current().nextInt(candidates.size());
+        OllamaNode best = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            OllamaNode candidate = candidates.get((i + offset) % candidates.size());
+            if (best == null || candidate.outstandingRequests() < best.outstandingRequests()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private void recordLatency(long millis) {
+        latencyLock.lock();
+        try {
+            latencies[latencyNext] = millis;
+            latencyNext = (latencyNext + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    private Duration hedgeDelay() {
+        if (!settings.hedgingEnabled() || nodes.size() < 2) {
+            return null;
+        }
+
+        long[] samples;
+        latencyLock.lock();
+        try {
+            if (latencyCount < MIN_LATENCY_SAMPLES) {
+                return null;
+            }
+            samples = Arrays.copyOf(latencies, latencyCount);
+        } finally {
+            latencyLock.unlock();
+        }
+
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(settings.hedgePercentile() / 100.0 * samples.length) - 1;
+        return Duration.ofMillis(samples[Math.max(0, Math.min(index, samples.length - 1))]);
+    }
+}
@@ -1,7 +1,22 @@
 package com.example.NextSteps.dto.roadmap.generation;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record OllamaRequest(
         String model,
         String prompt,
-        boolean stream
-) {}
+        boolean stream,
+        JsonNode format,
+        @JsonProperty("keep_alive") String keepAlive,
+        Map<String, Object> options
+) {
+
+    public OllamaRequest(String model, String prompt, boolean stream) {
+        this(model, prompt, stream, null, null, null);
+    }
+}
@@ -1,6 +1,16 @@
 package com.example.NextSteps.dto.roadmap.generation;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+//Durations are reported by Ollama in nanoseconds and are only present on the final (done) response
 public record OllamaResponse(
-        String response
+        String response,
+        boolean done,
+        @JsonProperty("total_duration") Long totalDuration,
+        @JsonProperty("load_duration") Long loadDuration,
+        @JsonProperty("prompt_eval_count") Integer promptEvalCount,
+        @JsonProperty("prompt_eval_duration") Long promptEvalDuration,
+        @JsonProperty("eval_count") Integer evalCount,
+        @JsonProperty("eval_duration") Long evalDuration
 ) {
 }
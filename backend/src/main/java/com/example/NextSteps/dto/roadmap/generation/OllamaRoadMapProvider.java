@@ -1,155 +1,437 @@
 package com.example.NextSteps.dto.roadmap.generation;
 
 import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.example.NextSteps.dto.roadmap.stage.StageProgressTracker;
 import com.example.NextSteps.entities.Profile;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
-import lombok.Data;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Component
-@Data
-@RequiredArgsConstructor
 public class OllamaRoadMapProvider implements AiRoadMapProvider {
 
-    private final WebClient webClient;
-    private final ObjectMapper objectMapper;
+    private final OllamaNodePool ollamaNodePool;
+    private final OllamaBulkhead ollamaBulkhead;
+    private final OllamaCircuitBreaker ollamaCircuitBreaker;
     private final Validator validator;
+    private final GenerationMetrics generationMetrics;
+    private final RoadmapPromptBuilder roadmapPromptBuilder;
+    private final RoadmapJsonReader roadmapJsonReader;
 
     private final String aiModel;
     private final int timeOut;
+    // Repair prompts sent after the first reply before giving up, each one costs a further upstream call
+    private final int maxRepairAttempts;
+    // STAGED asks for an outline first and then for each stage's courses in parallel
+    private final GenerationMode generationMode;
+    private final int stageParallelism;
+    private final int stageRetries;
+
+    public OllamaRoadMapProvider(OllamaNodePool ollamaNodePool,
+                                 OllamaBulkhead ollamaBulkhead,
+                                 OllamaCircuitBreaker ollamaCircuitBreaker,
+                                 Validator validator,
+                                 GenerationMetrics generationMetrics,
+                                 RoadmapPromptBuilder roadmapPromptBuilder,
+                                 RoadmapJsonReader roadmapJsonReader,
+                                 String aiModel,
+                                 int timeOut,
+                                 @Value("${ai.generation.max-repair-attempts:2}") int maxRepairAttempts,
+                                 @Value("${ai.generation.mode:SINGLE}") GenerationMode generationMode,
+                                 @Value("${ai.generation.stage-parallelism:4}") int stageParallelism,
+                                 @Value("${ai.generation.stage-retries:2}") int stageRetries) {
+        this.ollamaNodePool = ollamaNodePool;
+        this.ollamaBulkhead = ollamaBulkhead;
+        this.ollamaCircuitBreaker = ollamaCircuitBreaker;
+        this.validator = validator;
+        this.generationMetrics = generationMetrics;
+        this.roadmapPromptBuilder = roadmapPromptBuilder;
+        this.roadmapJsonReader = roadmapJsonReader;
+        this.aiModel = aiModel;
+        this.timeOut = timeOut;
+        this.maxRepairAttempts = maxRepairAttempts;
+        this.generationMode = generationMode;
+        this.stageParallelism = stageParallelism;
+        this.stageRetries = stageRetries;
+    }
 
     @Override
     public RoadMapDto generateRoadmap(Profile profile) {
-        String prompt = buildUserPrompt(profile);
-        OllamaRequest request = new OllamaRequest(aiModel, prompt, false);
+        return generateRoadmapAsync(profile).block();
+    }
 
-        OllamaResponse response;
-        try {
-            response = webClient.post()
-                    .uri("/api/generate")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(OllamaResponse.class)
-                    .block(Duration.ofSeconds(timeOut));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to connect to Ollama: " + e.getMessage(), e);
+    @Override
+    public Mono<RoadMapDto> generateRoadmapAsync(Profile profile) {
+        if (generationMode == GenerationMode.STAGED) {
+            return withinTimeout(streamStaged(profile)
+                    .filter(event -> event.type() == RoadmapStreamEvent.Type.COMPLETE)
+                    .map(RoadmapStreamEvent::roadmap)
+                    .next());
         }
 
-        if ((response == null) || response.response() == null) {
-            throw new RuntimeException("Ollama Response body was empty");
+        return Mono.defer(() -> {
+            GenerationTimings timings = new GenerationTimings();
+
+            long started = System.nanoTime();
+            String prompt = buildUserPrompt(profile);
+            timings.setPromptBuildMs(generationMetrics.recordPhase(GenerationMetrics.PROMPT_BUILD, started));
+
+            return withinTimeout(generate(roadmapPromptBuilder.request(prompt, false), timings)
+                    .flatMap(output -> parseOrRepair(prompt, output, timings, 0)));
+        });
+    }
+
+    @Override
+    public Flux<RoadmapStreamEvent> streamRoadmap(Profile profile) {
+        if (generationMode == GenerationMode.STAGED) {
+            return streamStaged(profile).timeout(Duration.ofSeconds(timeOut));
         }
 
-        RoadMapDto roadmap = parseRoadmapFromResponse(response.response());
+        return Flux.defer(() -> {
+            GenerationTimings timings = new GenerationTimings();
 
-        roadmap.setCreatedAt(OffsetDateTime.now());
+            long promptStarted = System.nanoTime();
+            String prompt = buildUserPrompt(profile);
+            timings.setPromptBuildMs(generationMetrics.recordPhase(GenerationMetrics.PROMPT_BUILD, promptStarted));
 
-        if (roadmap.getGenerationDetails() == null) {
-            roadmap.setGenerationDetails(new GenerationDetails());
+            OllamaRequest request = roadmapPromptBuilder.request(prompt, true);
+            long upstreamStarted = System.nanoTime();
+            RoadmapJsonReader.Incremental reader = roadmapJsonReader.incremental();
+
+            return ollamaBulkhead.protectMany(() -> ollamaCircuitBreaker.protectMany(() ->
+                            ollamaNodePool.executeMany(client -> client.post()
+                                            .uri("/api/generate")
+                                            .bodyValue(request)
+                                            .retrieve()
+                                            .bodyToFlux(OllamaResponse.class))
+                                    .timeout(Duration.ofSeconds(timeOut))
+                                    .onErrorMap(e -> new RuntimeException("Failed to connect to Ollama: " + e.getMessage(), e))))
+                    .doOnNext(chunk -> {
+                        // Only the final chunk carries Ollama's timings
+                        if (chunk.done()) {
+                            timings.setUpstreamMs(generationMetrics.recordPhase(GenerationMetrics.UPSTREAM, upstreamStarted));
+                            generationMetrics.recordOllamaTimings(chunk, timings);
+                        }
+                    })
+                    .concatMapIterable(chunk -> {
+                        List<RoadmapStreamEvent> events = new ArrayList<>();
+                        if (chunk.response() == null || chunk.response().isEmpty()) {
+                            return events;
+                        }
+                        events.add(RoadmapStreamEvent.token(chunk.response()));
+                        for (Stage stage : reader.accept(chunk.response())) {
+                            events.add(RoadmapStreamEvent.stage(stage));
+                        }
+                        return events;
+                    })
+                    // A repaired roadmap may differ from the stages already streamed, COMPLETE is the one that is saved
+                    .concatWith(Mono.defer(() -> reader.roadmap()
+                                    .map(roadmap -> validateOrRepair(prompt, reader.text(), roadmap, timings, 0))
+                                    .orElseGet(() -> parseOrRepair(prompt, reader.text(), timings, 0)))
+                            .timeout(Duration.ofSeconds(timeOut))
+                            .map(RoadmapStreamEvent::complete));
+        });
+    }
+
+    //Outline first, then every stage's courses as their own call so Ollama decodes them side by side on its
+    //parallel slots. A stage that fails to parse or validate is retried on its own and the others are kept.
+    private Flux<RoadmapStreamEvent> streamStaged(Profile profile) {
+        return Flux.defer(() -> {
+            GenerationTimings timings = new GenerationTimings();
+            AtomicInteger retries = new AtomicInteger();
+
+            long started = System.nanoTime();
+            String prompt = roadmapPromptBuilder.buildOutline(profile);
+            timings.setPromptBuildMs(generationMetrics.recordPhase(GenerationMetrics.PROMPT_BUILD, started));
+
+            return generateOutline(prompt, timings, retries)
+                    .flatMapMany(outline -> {
+                        List<Stage> stages = new ArrayList<>();
+                        return Flux.fromIterable(outline.getStages())
+                                .flatMap(stage -> generateStage(profile, outline, stage, retries), stageParallelism)
+                                .doOnNext(stages::add)
+                                .map(RoadmapStreamEvent::stage)
+                                .concatWith(Mono.fromCallable(() -> RoadmapStreamEvent.complete(
+                                        assemble(profile, outline, stages, timings, retries.get(), started))));
+                    });
+        });
+    }
+
+    private Mono<RoadmapOutline> generateOutline(String prompt, GenerationTimings timings, AtomicInteger retries) {
+        return generate(roadmapPromptBuilder.request(prompt, false, RoadmapOutline.class), timings)
+                .map(output -> {
+                    RoadmapOutline outline = validated(roadmapJsonReader.readFirstObject(output, RoadmapOutline.class),
+                            "Roadmap outline");
+                    // Ids and order come from the position in the outline, not whatever the model numbered them
+                    outline.getStages().sort(Comparator.comparingInt(StageOutline::getOrder));
+                    for (int i = 0; i < outline.getStages().size(); i++) {
+                        outline.getStages().get(i).setOrder(i + 1);
+                        outline.getStages().get(i).setStageId("stage-" + (i + 1));
+                    }
+                    return outline;
+                })
+                .retryWhen(stageRetry(retries));
+    }
+
+    private Mono<Stage> generateStage(Profile profile, RoadmapOutline outline, StageOutline stageOutline,
+                                      AtomicInteger retries) {
+        String prompt = roadmapPromptBuilder.buildStage(profile, outline, stageOutline);
+        // Parallel calls would race on a shared GenerationTimings, the phase timers still see every call
+        return generate(roadmapPromptBuilder.request(prompt, false, StageCourses.class), new GenerationTimings())
+                .map(output -> toStage(stageOutline, roadmapJsonReader.readFirstObject(output, StageCourses.class)))
+                .retryWhen(stageRetry(retries));
+    }
+
+    //Incremental regeneration: new courses for one stage of an existing roadmap, retried like a staged generation's
+    //stages. Courses the user has started or completed stay first in the stage, only the NOT_STARTED ones are replaced.
+    public Mono<Stage> rewriteStage(Profile profile, RoadMapDto roadmap, Stage stage, List<String> changes) {
+        return Mono.defer(() -> {
+            List<Course> kept = stage.getItems().stream()
+                    .filter(course -> course.getStatus() != CourseStatus.NOT_STARTED)
+                    .toList();
+            String prompt = roadmapPromptBuilder.buildStageRewrite(profile, roadmap, stage, changes, kept);
+            return generate(roadmapPromptBuilder.request(prompt, false, StageCourses.class), new GenerationTimings())
+                    .map(output -> rewrittenStage(stage, kept, roadmapJsonReader.readFirstObject(output, StageCourses.class)))
+                    .retryWhen(stageRetry(new AtomicInteger()));
+        });
+    }
+
+    private Retry stageRetry(AtomicInteger retries) {
+        return Retry.max(stageRetries)
+                // Shed or refused calls would only be refused again, retrying them defeats the fast fail
+                .filter(e -> !(e instanceof GenerationRejectedException))
+                .doBeforeRetry(signal -> {
+                    retries.incrementAndGet();
+                    generationMetrics.recordStageRetry();
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private Stage toStage(StageOutline outline, StageCourses courses) {
+        Stage stage = new Stage();
+        stage.setStageId(outline.getStageId());
+        stage.setOrder(outline.getOrder());
+        stage.setTitle(outline.getTitle());
+        stage.setDescription(outline.getDescription());
+
+        List<Course> items = courses.getItems() == null ? new ArrayList<>() : courses.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            Course course = items.get(i);
+            course.setOrder(i + 1);
+            course.setItemId(outline.getStageId() + "-course-" + (i + 1));
+            course.setStatus(CourseStatus.NOT_STARTED);
         }
-        roadmap.getGenerationDetails().setProvider(Provider.OLLAMA.name());
-        roadmap.getGenerationDetails().setModel(aiModel);
-        roadmap.getGenerationDetails().setGeneratedAt(OffsetDateTime.now());
+        stage.setItems(items);
 
-        validateOrThrow(roadmap);
-        return roadmap;
+        StageProgressTracker progress = new StageProgressTracker();
+        progress.setTotalSteps(items.size());
+        progress.setCurrentStep(1);
+        progress.setPercent(0);
+        stage.setProgress(progress);
+        return validated(stage, "Stage " + outline.getOrder());
     }
-    private RoadMapDto parseRoadmapFromResponse(String responseBody) {
-        String json = extractFirstJsonObject(responseBody);
 
-        try {
-            return objectMapper.readValue(json, RoadMapDto.class);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to parse roadmap from Ollama response", e);
+    // Kept courses keep their ids so progress links stay valid, new ones get ids the stage has not used
+    private Stage rewrittenStage(Stage previous, List<Course> kept, StageCourses courses) {
+        Stage stage = new Stage();
+        stage.setStageId(previous.getStageId());
+        stage.setOrder(previous.getOrder());
+        stage.setTitle(previous.getTitle());
+        stage.setDescription(previous.getDescription());
+
+        List<Course> items = new ArrayList<>(kept);
+        Set<String> usedIds = new HashSet<>();
+        Set<String> titles = new HashSet<>();
+        for (Course course : kept) {
+            usedIds.add(course.getItemId());
+            titles.add(course.getTitle().trim().toLowerCase(Locale.ROOT));
+        }
+
+        int next = 1;
+        for (Course course : courses.getItems() == null ? List.<Course>of() : courses.getItems()) {
+            // The model was told not to repeat the kept courses, drop any it repeated anyway
+            if (course.getTitle() != null && !titles.add(course.getTitle().trim().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            String itemId;
+            do {
+                itemId = previous.getStageId() + "-course-" + next++;
+            } while (!usedIds.add(itemId));
+            course.setItemId(itemId);
+            course.setStatus(CourseStatus.NOT_STARTED);
+            items.add(course);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setOrder(i + 1);
         }
+        stage.setItems(items);
+        stage.setProgress(StageProgressTracker.of(items));
+        return validated(stage, "Stage " + previous.getOrder());
     }
 
-    private void validateOrThrow(RoadMapDto roadMap) {
-        Set<ConstraintViolation<RoadMapDto>> violations = validator.validate(roadMap);
+    private RoadMapDto assemble(Profile profile, RoadmapOutline outline, List<Stage> stages, GenerationTimings timings,
+                                int retries, long started) {
+        // Wall clock for the outline and the fan-out, the per-call times overlap
+        timings.setUpstreamMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        RoadMapDto roadmap = new RoadMapDto();
+        roadmap.setRoadmapId(UUID.randomUUID().toString());
+        roadmap.setUserId(String.valueOf(profile.getUserId()));
+        roadmap.setTargetRole(outline.getTargetRole());
+        roadmap.setSummary(outline.getSummary());
+        List<Stage> ordered = new ArrayList<>(stages);
+        ordered.sort(Comparator.comparingInt(Stage::getOrder));
+        roadmap.setStages(ordered);
+
+        long validationStarted = System.nanoTime();
+        validateOrThrow(roadmap);
+        timings.setValidationMs(generationMetrics.recordPhase(GenerationMetrics.VALIDATION, validationStarted));
+
+        // Stage retries regenerate a call rather than repair a reply and are counted by recordStageRetry,
+        // staged mode never sends a repair prompt so every roadmap that gets here passed first time
+        timings.setStageRetries(retries);
+        timings.setRepairAttempts(0);
+        generationMetrics.recordOutcome(GenerationMetrics.FIRST_PASS, 0);
+        return completeRoadmap(roadmap, timings);
+    }
+
+    private <T> T validated(T value, String name) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
         if (!violations.isEmpty()) {
-            String errorMessage = violations.stream()
+            throw new RuntimeException(name + " violation:" + violations.stream()
                     .map(v -> v.getPropertyPath() + ": " + v.getMessage())
-                    .collect(Collectors.joining(", "));
-            throw new RuntimeException("Roadmap violation:" + errorMessage);
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
         }
+        return value;
     }
 
-    private String buildUserPrompt(Profile profile) {
-        String profileJson = json(profile);
-
-        return """
-            Based on this user profile: %s
-
-            Generate a learning roadmap as valid JSON with this exact structure (no markdown, no commentary, just JSON):
-            {
-                "roadmapId": "unique-id-here",
-                "userId": "user-id-here",
-                "targetRole": "the career goal from the profile",
-                "summary": "a brief summary of the roadmap",
-                "stages": [
-                    {
-                        "stageId": "stage-1",
-                        "order": 1,
-                        "title": "Stage Title",
-                        "description": "What this stage covers",
-                        "progress": {
-                            "totalSteps": 3,
-                            "currentStep": 1,
-                            "percent": 0
-                        },
-                        "items": [
-                            {
-                                "itemId": "course-1",
-                                "order": 1,
-                                "title": "Course Title",
-                                "description": "Course description",
-                                "details": "Additional details",
-                                "url": "https://example.com",
-                                "estimatedHours": 10.0,
-                                "status": "NOT_STARTED"
-                            }
-                        ]
-                    }
-                ]
-            }
-
-            Create 3-5 stages with 2-3 courses each based on the user's goal and current skills.
-            """.formatted(profileJson);
+    // Repairs and staged calls share the original time budget so a generation never waits longer than it did before
+    private Mono<RoadMapDto> withinTimeout(Mono<RoadMapDto> generation) {
+        return generation.timeout(Duration.ofSeconds(timeOut),
+                Mono.error(() -> new RuntimeException("Timed out waiting for Ollama after " + timeOut + "s")));
     }
 
+    //Shed by the bulkhead or refused by an open breaker before any connection is made, both as GenerationRejectedException
+    private Mono<String> generate(OllamaRequest request, GenerationTimings timings) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return ollamaBulkhead.protect(() -> ollamaCircuitBreaker.protect(() ->
+                            ollamaNodePool.execute(client -> client.post()
+                                            .uri("/api/generate")
+                                            .bodyValue(request)
+                                            .retrieve()
+                                            .bodyToMono(OllamaResponse.class))
+                                    .onErrorMap(e -> new RuntimeException("Failed to connect to Ollama: " + e.getMessage(), e))))
+                    .filter(response -> response.response() != null)
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Ollama Response body was empty")))
+                    .map(response -> {
+                        long upstreamMs = generationMetrics.recordPhase(GenerationMetrics.UPSTREAM, started);
+                        timings.setUpstreamMs(timings.getUpstreamMs() == null ? upstreamMs : timings.getUpstreamMs() + upstreamMs);
+                        generationMetrics.recordOllamaTimings(response, timings);
+                        return response.response();
+                    });
+        });
+    }
 
-    private String json(Object object) {
+    //Parses and validates a reply, and when that fails sends the problems back to the model rather than
+    //generating the whole roadmap again, up to maxRepairAttempts times
+    private Mono<RoadMapDto> parseOrRepair(String prompt, String output, GenerationTimings timings, int repairs) {
+        RoadMapDto roadmap;
         try {
-            return objectMapper.writeValueAsString(object);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize object to JSON", e);
+            roadmap = parseRoadmapFromResponse(output, timings);
+        } catch (RuntimeException e) {
+            String reason = e.getCause() instanceof JsonProcessingException jsonError
+                    ? jsonError.getOriginalMessage()
+                    : e.getMessage();
+            return repairOrFail(prompt, output, List.of("the reply is not a valid roadmap JSON object: " + reason),
+                    timings, repairs);
         }
+        return validateOrRepair(prompt, output, roadmap, timings, repairs);
     }
 
-    private String extractFirstJsonObject(String rawJson) {
-        int start = rawJson.indexOf('{');
-        if (start < 0) {
-            return rawJson.trim();
+    private Mono<RoadMapDto> validateOrRepair(String prompt, String output, RoadMapDto roadmap,
+                                              GenerationTimings timings, int repairs) {
+        long started = System.nanoTime();
+        List<String> problems = findViolations(roadmap);
+        timings.setValidationMs(generationMetrics.recordPhase(GenerationMetrics.VALIDATION, started));
+
+        if (!problems.isEmpty()) {
+            return repairOrFail(prompt, output, problems, timings, repairs);
         }
+        timings.setRepairAttempts(repairs);
+        generationMetrics.recordOutcome(repairs == 0 ? GenerationMetrics.FIRST_PASS : GenerationMetrics.REPAIRED, repairs);
+        return Mono.just(completeRoadmap(roadmap, timings));
+    }
 
-        int depth = 0;
-        for (int i = start; i < rawJson.length(); i++) {
-            char c = rawJson.charAt(i);
-            if (c == '{') depth++;
-            if (c == '}') depth--;
-            if (depth == 0) {
-                return rawJson.substring(start, i + 1).trim();
-            }
+    private Mono<RoadMapDto> repairOrFail(String prompt, String output, List<String> problems,
+                                          GenerationTimings timings, int repairs) {
+        if (repairs >= maxRepairAttempts) {
+            timings.setRepairAttempts(repairs);
+            generationMetrics.recordOutcome(GenerationMetrics.FAILED, repairs);
+            return Mono.error(new RuntimeException("Roadmap violation:" + String.join(", ", problems)));
         }
-        return rawJson.substring(start).trim();
+        return generate(roadmapPromptBuilder.request(roadmapPromptBuilder.repair(prompt, output, problems), false), timings)
+                .flatMap(repaired -> parseOrRepair(prompt, repaired, timings, repairs + 1));
+    }
+
+    private RoadMapDto completeRoadmap(RoadMapDto roadmap, GenerationTimings timings) {
+        roadmap.setCreatedAt(OffsetDateTime.now());
+
+        if (roadmap.getGenerationDetails() == null) {
+            roadmap.setGenerationDetails(new GenerationDetails());
+        }
+        roadmap.getGenerationDetails().setProvider(Provider.OLLAMA.name());
+        roadmap.getGenerationDetails().setModel(aiModel);
+        roadmap.getGenerationDetails().setGeneratedAt(OffsetDateTime.now());
+        roadmap.getGenerationDetails().setTimings(timings);
+        return roadmap;
+    }
+
+    RoadMapDto parseRoadmapFromResponse(String responseBody, GenerationTimings timings) {
+        long started = System.nanoTime();
+        RoadMapDto roadmap = roadmapJsonReader.readFirstObject(responseBody, RoadMapDto.class);
+        timings.setParseMs(generationMetrics.recordPhase(GenerationMetrics.PARSING, started));
+        return roadmap;
+    }
+
+    void validateOrThrow(RoadMapDto roadMap) {
+        List<String> violations = findViolations(roadMap);
+        if (!violations.isEmpty()) {
+            throw new RuntimeException("Roadmap violation:" + String.join(", ", violations));
+        }
+    }
+
+    private List<String> findViolations(RoadMapDto roadMap) {
+        Set<ConstraintViolation<RoadMapDto>> violations = validator.validate(roadMap);
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    String buildUserPrompt(Profile profile) {
+        return roadmapPromptBuilder.build(profile);
     }
 }
@@ -0,0 +1,177 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.example.NextSteps.entities.Profile;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+//What changed in a profile since its roadmap was written, compared the same way as the cache key (case, spacing and
+//order do not count), and which of the roadmap's stages that change touches
+public class ProfileChange {
+
+    private final boolean goalChanged;
+    private final List<String> addedSkills;
+    private final List<String> removedSkills;
+    private final List<String> addedInterests;
+    private final List<String> removedInterests;
+
+    private ProfileChange(boolean goalChanged, List<String> addedSkills, List<String> removedSkills,
+                          List<String> addedInterests, List<String> removedInterests) {
+        this.goalChanged = goalChanged;
+        this.addedSkills = addedSkills;
+        this.removedSkills = removedSkills;
+        this.addedInterests = addedInterests;
+        this.removedInterests = removedInterests;
+    }
+
+    public static ProfileChange between(ProfileSnapshot previous, Profile current) {
+        Map<String, String> oldSkills = normalised(previous.getSkills());
+        Map<String, String> newSkills = normalised(current.getSkills());
+        Map<String, String> oldInterests = normalised(previous.getInterests());
+        Map<String, String> newInterests = normalised(current.getInterests());
+
+        return new ProfileChange(
+                !normalise(previous.getGoalTitle()).equals(normalise(current.getGoalTitle())),
+                missingFrom(oldSkills, newSkills),
+                missingFrom(newSkills, oldSkills),
+                missingFrom(oldInterests, newInterests),
+                missingFrom(newInterests, oldInterests));
+    }
+
+    public boolean goalChanged() {
+        return goalChanged;
+    }
+
+    public boolean isEmpty() {
+        return !goalChanged && addedSkills.isEmpty() && removedSkills.isEmpty()
+                && addedInterests.isEmpty() && removedInterests.isEmpty();
+    }
+
+    //The stages that still have a course to replace and either mention a changed skill or interest or, for a change
+    //no stage mentions, are where it belongs: a skill the user no longer has goes into the first stage they have not
+    //finished, a new interest into the last. A new skill no stage teaches, or a dropped interest no stage covers,
+    //leaves the roadmap as it is. Stages come back in roadmap order.
+    public List<Stage> affectedStages(List<Stage> stages) {
+        List<Stage> rewritable = stages.stream().filter(ProfileChange::hasUnstartedCourse).toList();
+        Set<Stage> affected = new LinkedHashSet<>();
+
+        for (String skill : addedSkills) {
+            affected.addAll(mentioning(rewritable, skill));
+        }
+        for (String skill : removedSkills) {
+            if (mentioning(stages, skill).isEmpty()) {
+                rewritable.stream().findFirst().ifPresent(affected::add);
+            } else {
+                affected.addAll(mentioning(rewritable, skill));
+            }
+        }
+        for (String interest : addedInterests) {
+            if (mentioning(stages, interest).isEmpty()) {
+                if (!rewritable.isEmpty()) {
+                    affected.add(rewritable.get(rewritable.size() - 1));
+                }
+            } else {
+                affected.addAll(mentioning(rewritable, interest));
+            }
+        }
+        for (String interest : removedInterests) {
+            affected.addAll(mentioning(rewritable, interest));
+        }
+
+        return rewritable.stream().filter(affected::contains).toList();
+    }
+
+    //One line per change, for the prompt
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        if (goalChanged) {
+            lines.add("The career goal changed.");
+        }
+        if (!addedSkills.isEmpty()) {
+            lines.add("The user now already knows: " + String.join(", ", addedSkills));
+        }
+        if (!removedSkills.isEmpty()) {
+            lines.add("The user no longer lists as a skill: " + String.join(", ", removedSkills));
+        }
+        if (!addedInterests.isEmpty()) {
+            lines.add("The user is now also interested in: " + String.join(", ", addedInterests));
+        }
+        if (!removedInterests.isEmpty()) {
+            lines.add("The user is no longer interested in: " + String.join(", ", removedInterests));
+        }
+        return lines;
+    }
+
+    private static boolean hasUnstartedCourse(Stage stage) {
+        return stage.getItems() != null
+                && stage.getItems().stream().anyMatch(course -> course.getStatus() == CourseStatus.NOT_STARTED);
+    }
+
+    // Whole words only, so "Java" does not match a JavaScript stage
+    private static List<Stage> mentioning(List<Stage> stages, String term) {
+        Pattern word = Pattern.compile("(?<![\\p{L}\\p{N}])" + Pattern.quote(term) + "(?![\\p{L}\\p{N}])",
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        return stages.stream().filter(stage -> word.matcher(text(stage)).find()).toList();
+    }
+
+    private static String text(Stage stage) {
+        StringBuilder text = new StringBuilder();
+        append(text, stage.getTitle());
+        append(text, stage.getDescription());
+        if (stage.getItems() != null) {
+            for (Course course : stage.getItems()) {
+                append(text, course.getTitle());
+                append(text, course.getDescription());
+                append(text, course.getDetails());
+            }
+        }
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, String value) {
+        if (value != null) {
+            text.append(value).append('\n');
+        }
+    }
+
+    private static List<String> missingFrom(Map<String, String> before, Map<String, String> after) {
+        List<String> missing = new ArrayList<>();
+        after.forEach((key, value) -> {
+            if (!before.containsKey(key)) {
+                missing.add(value);
+            }
+        });
+        return missing;
+    }
+
+    // Normalised value to the value as the user wrote it, which is what goes into the prompt
+    private static Map<String, String> normalised(List<String> values) {
+        Map<String, String> normalised = new LinkedHashMap<>();
+        if (values == null) {
+            return normalised;
+        }
+        for (String value : values) {
+            String key = normalise(value);
+            if (!key.isEmpty()) {
+                normalised.putIfAbsent(key, value.trim().replaceAll("\\s+", " "));
+            }
+        }
+        return normalised;
+    }
+
+    private static String normalise(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
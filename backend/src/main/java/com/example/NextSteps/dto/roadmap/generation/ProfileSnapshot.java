@@ -0,0 +1,25 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.entities.Profile;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//The profile fields a roadmap was written for, kept with it so a later regeneration can tell what changed since
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProfileSnapshot {
+    private String goalTitle;
+    private List<String> skills;
+    private List<String> interests;
+
+    public static ProfileSnapshot of(Profile profile) {
+        return new ProfileSnapshot(profile.getGoalTitle(),
+                profile.getSkills() != null ? new ArrayList<>(profile.getSkills()) : new ArrayList<>(),
+                profile.getInterests() != null ? new ArrayList<>(profile.getInterests()) : new ArrayList<>());
+    }
+}
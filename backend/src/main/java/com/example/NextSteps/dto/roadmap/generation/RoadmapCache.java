@@ -0,0 +1,147 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.entities.RoadmapCacheEntry;
+import com.example.NextSteps.repository.RoadmapCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Generated roadmaps keyed by profile hash: an LRU in memory, backed by the roadmap_cache table so entries survive restarts
+@Slf4j
+@Component
+public class RoadmapCache {
+
+    private final RoadmapCacheRepository roadmapCacheRepository;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final boolean persistent;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, CachedRoadmap> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private record CachedRoadmap(String json, OffsetDateTime createdAt) {
+    }
+
+    public RoadmapCache(RoadmapCacheRepository roadmapCacheRepository,
+                        @Value("${ai.cache.max-entries:500}") int maxEntries,
+                        @Value("${ai.cache.ttl-minutes:1440}") long ttlMinutes,
+                        @Value("${ai.cache.persistent:true}") boolean persistent) {
+        this.roadmapCacheRepository = roadmapCacheRepository;
+        this.maxEntries = maxEntries;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.persistent = persistent;
+    }
+
+    public Optional<String> get(String key) {
+        lock.lock();
+        try {
+            CachedRoadmap cached = entries.get(key);
+            if (cached != null) {
+                if (!isExpired(cached.createdAt())) {
+                    return Optional.of(cached.json());
+                }
+                entries.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (!persistent) {
+            return Optional.empty();
+        }
+
+        Optional<RoadmapCacheEntry> stored = findStored(key);
+        stored.ifPresent(entry -> putInMemory(key, new CachedRoadmap(entry.getRoadmapJson(), entry.getCreatedAt())));
+        return stored.map(RoadmapCacheEntry::getRoadmapJson);
+    }
+
+    public void put(String key, String model, String json) {
+        OffsetDateTime now = OffsetDateTime.now();
+        putInMemory(key, new CachedRoadmap(json, now));
+
+        if (!persistent) {
+            return;
+        }
+
+        RoadmapCacheEntry entry = new RoadmapCacheEntry();
+        entry.setCacheKey(key);
+        entry.setModel(model);
+        entry.setRoadmapJson(json);
+        entry.setCreatedAt(now);
+        try {
+            roadmapCacheRepository.save(entry);
+        } catch (RuntimeException e) {
+            log.warn("Failed to persist cached roadmap {}", key, e);
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ai.cache.cleanup-interval-ms:600000}")
+    public void evictExpired() {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<String, CachedRoadmap>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (isExpired(iterator.next().getValue().createdAt())) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (persistent) {
+            try {
+                roadmapCacheRepository.deleteOlderThan(OffsetDateTime.now().minus(ttl));
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict expired roadmaps from the cache table", e);
+            }
+        }
+    }
+
+    private Optional<RoadmapCacheEntry> findStored(String key) {
+        try {
+            return roadmapCacheRepository.findById(key)
+                    .filter(entry -> !isExpired(entry.getCreatedAt()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to read cached roadmap {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    private void putInMemory(String key, CachedRoadmap cached) {
+        lock.lock();
+        try {
+            entries.put(key, cached);
+            // Access ordered, so the first entry is always the least recently used one
+            Iterator<String> iterator = entries.keySet().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(OffsetDateTime createdAt) {
+        return createdAt.plus(ttl).isBefore(OffsetDateTime.now());
+    }
+}
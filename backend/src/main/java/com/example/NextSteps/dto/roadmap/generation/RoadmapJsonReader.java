@@ -0,0 +1,222 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+//Reads the first JSON object out of model output with Jackson's tokenizer, so braces inside strings and escapes
+//are handled and the object is bound while it is being read instead of being cut out and parsed a second time.
+//Anything before the object (prose, a ```json fence) is skipped. A '{' is only taken as the start of the object
+//once the token after it is a field name, otherwise the search carries on from the next '{'.
+@Component
+public class RoadmapJsonReader {
+
+    private static final int MAX_CANDIDATES = 16;
+
+    private final ObjectMapper objectMapper;
+
+    public RoadmapJsonReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> T readFirstObject(String text, Class<T> type) {
+        char[] chars = text.toCharArray();
+        int start = text.indexOf('{');
+
+        for (int candidates = 0; start >= 0 && candidates < MAX_CANDIDATES; candidates++) {
+            if (startsObject(chars, start)) {
+                try (JsonParser parser = objectMapper.getFactory().createParser(chars, start, chars.length - start)) {
+                    return objectMapper.readValue(parser, type);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to parse roadmap from Ollama response", e);
+                }
+            }
+            start = text.indexOf('{', start + 1);
+        }
+        throw new RuntimeException("Ollama response does not contain a JSON object");
+    }
+
+    public Incremental incremental() {
+        return new Incremental();
+    }
+
+    private boolean startsObject(char[] chars, int start) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(chars, start, chars.length - start)) {
+            parser.nextToken();
+            return parser.nextToken() == JsonToken.FIELD_NAME;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    //Feeds streamed chunks through a non-blocking parser. Stages are bound as soon as their object closes and the
+    //roadmap as soon as the root object does, so the complete output never has to be parsed again afterwards.
+    public class Incremental {
+
+        private static final int ROOT_DEPTH = 1;
+        private static final int STAGES_DEPTH = 2;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private JsonParser parser;
+        private TokenBuffer root;
+        private TokenBuffer stage;
+
+        private int start;
+        private int fed;
+        private int candidates;
+        private int tokens;
+        // Set once the token after the '{' is a field name, from then on a parse error means the object is malformed
+        private boolean committed;
+        private int depth;
+        private boolean inStages;
+        private String lastRootField;
+
+        private RoadMapDto roadmap;
+        private IOException failure;
+
+        //Returns the stages completed by this chunk
+        public List<Stage> accept(String chunk) {
+            text.append(chunk);
+            List<Stage> completed = new ArrayList<>();
+
+            while (roadmap == null && failure == null) {
+                if (parser == null && !nextCandidate()) {
+                    break;
+                }
+                try {
+                    byte[] input = text.substring(fed).getBytes(StandardCharsets.UTF_8);
+                    fed = text.length();
+                    ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(input, 0, input.length);
+                    drain(completed);
+                    break;
+                } catch (IOException e) {
+                    if (committed) {
+                        // Past the first field, this is the object and it is malformed
+                        failure = e;
+                    } else {
+                        // A '{' in the prose before the object, try the next one
+                        parser = null;
+                        fed = start + 1;
+                    }
+                }
+            }
+            return completed;
+        }
+
+        //The roadmap once its root object has been read, empty while it is incomplete or if it was malformed
+        public Optional<RoadMapDto> roadmap() {
+            return Optional.ofNullable(roadmap);
+        }
+
+        public Optional<IOException> failure() {
+            return Optional.ofNullable(failure);
+        }
+
+        public String text() {
+            return text.toString();
+        }
+
+        private boolean nextCandidate() {
+            int next = text.indexOf("{", fed);
+            if (next < 0 || candidates >= MAX_CANDIDATES) {
+                fed = text.length();
+                return false;
+            }
+            try {
+                parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to create JSON parser", e);
+            }
+            candidates++;
+            start = next;
+            fed = next;
+            root = new TokenBuffer(parser);
+            stage = null;
+            tokens = 0;
+            committed = false;
+            depth = 0;
+            inStages = false;
+            lastRootField = null;
+            return true;
+        }
+
+        private void drain(List<Stage> completed) throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                tokens++;
+                if (tokens == 2) {
+                    if (token != JsonToken.FIELD_NAME) {
+                        // Such as a "{}" in the prose, not fatal: the search carries on from the next '{'
+                        throw new JsonParseException(parser, "Not the start of a roadmap object");
+                    }
+                    committed = true;
+                }
+                root.copyCurrentEvent(parser);
+
+                switch (token) {
+                    case START_OBJECT -> {
+                        depth++;
+                        if (inStages && depth == STAGES_DEPTH + 1) {
+                            stage = new TokenBuffer(parser);
+                        }
+                    }
+                    case START_ARRAY -> {
+                        depth++;
+                        if (depth == STAGES_DEPTH) {
+                            inStages = "stages".equals(lastRootField);
+                        }
+                    }
+                    case FIELD_NAME -> {
+                        if (depth == ROOT_DEPTH) {
+                            lastRootField = parser.currentName();
+                        }
+                    }
+                    default -> {
+                    }
+                }
+
+                if (stage != null) {
+                    stage.copyCurrentEvent(parser);
+                }
+
+                if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    depth--;
+                    if (token == JsonToken.END_OBJECT && stage != null && depth == STAGES_DEPTH) {
+                        bindStage().ifPresent(completed::add);
+                        stage = null;
+                    }
+                    if (token == JsonToken.END_ARRAY && depth == ROOT_DEPTH) {
+                        inStages = false;
+                    }
+                    if (depth == 0) {
+                        roadmap = objectMapper.readValue(root.asParser(), RoadMapDto.class);
+                        parser.close();
+                        return;
+                    }
+                }
+            }
+        }
+
+        //A stage that does not bind on its own is not fatal, the full roadmap is still validated at the end
+        private Optional<Stage> bindStage() {
+            try (JsonParser stageParser = stage.asParser()) {
+                return Optional.of(objectMapper.readValue(stageParser, Stage.class));
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//JSON Schema for RoadMapDto, derived once from the DTO classes and their validation annotations and sent as
+//Ollama's "format" so decoding is constrained to the shape validateOrThrow expects.
+//Properties are emitted in field order, which is also the order the model writes them in.
+@Component
+public class RoadmapJsonSchema {
+
+    // Filled in by the server after generation, the model is never asked for them
+    private static final Set<String> SERVER_FIELDS = Set.of("createdAt", "updatedAt", "generationDetails");
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Map<Class<?>, ObjectNode> schemas = new ConcurrentHashMap<>();
+
+    public RoadmapJsonSchema(ObjectMapper objectMapper,
+                             @Value("${ai.ollama.structured-output:true}") boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        schemas.put(RoadMapDto.class, objectSchema(RoadMapDto.class));
+    }
+
+    //What to send as the request's format, null leaves decoding unconstrained
+    public JsonNode format() {
+        return format(RoadMapDto.class);
+    }
+
+    //The same for the smaller replies of a staged generation (RoadmapOutline, StageCourses)
+    public JsonNode format(Class<?> type) {
+        return enabled ? schema(type) : null;
+    }
+
+    public JsonNode schema(Class<?> type) {
+        return schemas.computeIfAbsent(type, this::objectSchema);
+    }
+
+    private ObjectNode objectSchema(Class<?> type) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("type", "object");
+        ObjectNode properties = node.putObject("properties");
+        ArrayNode required = objectMapper.createArrayNode();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || SERVER_FIELDS.contains(field.getName()) || isIgnored(field)) {
+                continue;
+            }
+            properties.set(field.getName(), fieldSchema(field));
+            if (isRequired(field)) {
+                required.add(field.getName());
+            }
+        }
+
+        node.set("required", required);
+        node.put("additionalProperties", false);
+        return node;
+    }
+
+    // Never read from or written to JSON, such as the profile embedding, so the model must not be asked for it either
+    private static boolean isIgnored(Field field) {
+        JsonIgnore ignore = field.getAnnotation(JsonIgnore.class);
+        return ignore != null && ignore.value();
+    }
+
+    private ObjectNode fieldSchema(Field field) {
+        Class<?> type = field.getType();
+        ObjectNode node;
+
+        if (type == String.class) {
+            node = objectMapper.createObjectNode().put("type", "string");
+            if (field.isAnnotationPresent(NotBlank.class)) {
+                node.put("minLength", 1);
+            }
+        } else if (type == int.class || type == Integer.class || type == long.class || type == Long.class) {
+            node = objectMapper.createObjectNode().put("type", "integer");
+        } else if (type == double.class || type == Double.class || type == float.class || type == Float.class) {
+            node = objectMapper.createObjectNode().put("type", "number");
+        } else if (type == boolean.class || type == Boolean.class) {
+            node = objectMapper.createObjectNode().put("type", "boolean");
+        } else if (type.isEnum()) {
+            node = objectMapper.createObjectNode().put("type", "string");
+            ArrayNode values = node.putArray("enum");
+            for (Object constant : type.getEnumConstants()) {
+                values.add(((Enum<?>) constant).name());
+            }
+        } else if (Collection.class.isAssignableFrom(type)) {
+            node = objectMapper.createObjectNode().put("type", "array");
+            node.set("items", elementSchema(field.getGenericType()));
+            if (field.isAnnotationPresent(NotEmpty.class)) {
+                node.put("minItems", 1);
+            }
+        } else {
+            node = objectSchema(type);
+        }
+
+        Min min = field.getAnnotation(Min.class);
+        if (min != null) {
+            node.put("minimum", min.value());
+        }
+        Max max = field.getAnnotation(Max.class);
+        if (max != null) {
+            node.put("maximum", max.value());
+        }
+        DecimalMin decimalMin = field.getAnnotation(DecimalMin.class);
+        if (decimalMin != null) {
+            node.put("minimum", new BigDecimal(decimalMin.value()));
+        }
+        return node;
+    }
+
+    private ObjectNode elementSchema(Type collectionType) {
+        if (collectionType instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] instanceof Class<?> elementType) {
+            if (elementType == String.class) {
+                return objectMapper.createObjectNode().put("type", "string");
+            }
+            return objectSchema(elementType);
+        }
+        throw new IllegalStateException("Cannot derive a schema for collection type " + collectionType);
+    }
+
+    // Primitives are always written by Jackson, so the model has to produce them too
+    private static boolean isRequired(Field field) {
+        return field.getType().isPrimitive()
+                || field.isAnnotationPresent(NotNull.class)
+                || field.isAnnotationPresent(NotBlank.class)
+                || field.isAnnotationPresent(NotEmpty.class);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+//First call of a staged generation: the roadmap without any courses
+@Data
+public class RoadmapOutline {
+
+    @NotBlank
+    private String targetRole;
+
+    @NotBlank
+    private String summary;
+
+    @Valid
+    @NotEmpty
+    private List<StageOutline> stages;
+}
@@ -0,0 +1,205 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.example.NextSteps.entities.Profile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//Builds the roadmap prompt with the fixed instructions and schema first and the profile facts last.
+//Every prompt then starts with the same tokens, so Ollama can reuse the KV cache it already holds for
+//that prefix and only evaluate the few profile lines. This only works while the model stays loaded
+//(keep_alive) and num_ctx stays the same, because a different num_ctx makes Ollama reload the model.
+@Slf4j
+@Component
+public class RoadmapPromptBuilder {
+
+    static final String STATIC_PREFIX = """
+            You are a careers advisor who writes personalised learning roadmaps.
+            Reply with one JSON object and nothing else: no markdown, no commentary.
+            The JSON must have exactly this structure:
+            {"roadmapId":"unique-id-here","userId":"user-id-here","targetRole":"the career goal from the profile","summary":"a brief summary of the roadmap","stages":[{"stageId":"stage-1","order":1,"title":"Stage Title","description":"What this stage covers","progress":{"totalSteps":3,"currentStep":1,"percent":0},"items":[{"itemId":"course-1","order":1,"title":"Course Title","description":"Course description","details":"Additional details","url":"https://example.com","estimatedHours":10.0,"status":"NOT_STARTED"}]}]}
+            Rules:
+            - Create 3-5 stages with 2-3 courses each based on the user's goal and current skills.
+            - Build on skills the user already has instead of teaching them again, and favour their interests.
+            - totalSteps is the number of courses in the stage, currentStep is 1, percent is 0 and every status is NOT_STARTED.
+
+            User profile:
+            """;
+
+    // Staged mode: the outline call, then one call per stage whose prompt only differs in its last line
+    static final String OUTLINE_PREFIX = """
+            You are a careers advisor who plans personalised learning roadmaps.
+            Reply with one JSON object and nothing else: no markdown, no commentary.
+            The JSON must have exactly this structure:
+            {"targetRole":"the career goal from the profile","summary":"a brief summary of the roadmap","stages":[{"stageId":"stage-1","order":1,"title":"Stage Title","description":"What this stage covers"}]}
+            Rules:
+            - Create 3-5 stages in the order they should be taken, based on the user's goal and current skills.
+            - Build on skills the user already has instead of teaching them again, and favour their interests.
+
+            User profile:
+            """;
+
+    static final String STAGE_PREFIX = """
+            You are a careers advisor who picks courses for one stage of a personalised learning roadmap.
+            Reply with one JSON object and nothing else: no markdown, no commentary.
+            The JSON must have exactly this structure:
+            {"items":[{"itemId":"course-1","order":1,"title":"Course Title","description":"Course description","details":"Additional details","url":"https://example.com","estimatedHours":10.0,"status":"NOT_STARTED"}]}
+            Rules:
+            - Create 2-3 courses that cover only the requested stage, the other stages get their own courses.
+            - Build on skills the user already has instead of teaching them again, and favour their interests.
+            - Every status is NOT_STARTED.
+
+            User profile:
+            """;
+
+    private static final int MAX_GOAL_LENGTH = 200;
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final String aiModel;
+    private final int maxPromptTokens;
+    private final int contextTokens;
+    private final String keepAlive;
+    private final RoadmapJsonSchema roadmapJsonSchema;
+
+    public RoadmapPromptBuilder(String aiModel,
+                                @Value("${ai.prompt.max-tokens:1024}") int maxPromptTokens,
+                                @Value("${ai.ollama.num-ctx:4096}") int contextTokens,
+                                @Value("${ai.ollama.keep-alive:30m}") String keepAlive,
+                                RoadmapJsonSchema roadmapJsonSchema) {
+        this.aiModel = aiModel;
+        this.maxPromptTokens = maxPromptTokens;
+        this.contextTokens = contextTokens;
+        this.keepAlive = keepAlive;
+        this.roadmapJsonSchema = roadmapJsonSchema;
+    }
+
+    public String build(Profile profile) {
+        return fit(STATIC_PREFIX, profile);
+    }
+
+    public String buildOutline(Profile profile) {
+        return fit(OUTLINE_PREFIX, profile);
+    }
+
+    //The outline is the same for every stage of a roadmap so it goes before the one line naming the stage
+    public String buildStage(Profile profile, RoadmapOutline outline, StageOutline stage) {
+        StringBuilder prompt = new StringBuilder(fit(STAGE_PREFIX, profile)).append("\nRoadmap stages:\n");
+        for (StageOutline planned : outline.getStages()) {
+            prompt.append(planned.getOrder()).append(". ").append(planned.getTitle()).append('\n');
+        }
+        prompt.append("\nWrite the courses for stage ").append(stage.getOrder()).append(": ").append(stage.getTitle());
+        if (stage.getDescription() != null && !stage.getDescription().isBlank()) {
+            prompt.append(" - ").append(stage.getDescription().trim());
+        }
+        return prompt.append('\n').toString();
+    }
+
+    //Incremental regeneration of one stage: laid out like buildStage, with what changed in the profile and the courses
+    //the user has already started, which stay in the stage, before the line naming the stage
+    public String buildStageRewrite(Profile profile, RoadMapDto roadmap, Stage stage, List<String> changes,
+                                    List<Course> kept) {
+        StringBuilder prompt = new StringBuilder(fit(STAGE_PREFIX, profile)).append("\nRoadmap stages:\n");
+        for (Stage planned : roadmap.getStages()) {
+            prompt.append(planned.getOrder()).append(". ").append(planned.getTitle()).append('\n');
+        }
+        prompt.append("\nSince this roadmap was written:\n");
+        for (String change : changes) {
+            prompt.append("- ").append(change).append('\n');
+        }
+        if (!kept.isEmpty()) {
+            prompt.append("\nThe user has already started these courses of the stage, they stay in it so do not repeat them:\n");
+            for (Course course : kept) {
+                prompt.append("- ").append(course.getTitle()).append('\n');
+            }
+        }
+        prompt.append("\nRewrite the courses for stage ").append(stage.getOrder()).append(": ").append(stage.getTitle());
+        if (stage.getDescription() != null && !stage.getDescription().isBlank()) {
+            prompt.append(" - ").append(stage.getDescription().trim());
+        }
+        return prompt.append('\n').toString();
+    }
+
+    private String fit(String prefix, Profile profile) {
+        String goal = truncate(profile.getGoalTitle());
+        List<String> skills = nonBlank(profile.getSkills());
+        List<String> interests = nonBlank(profile.getInterests());
+
+        String prompt = render(prefix, goal, skills, interests);
+        // Over budget: drop the trailing skills and interests until it fits, the goal always stays
+        while (estimateTokens(prompt) > maxPromptTokens && (!skills.isEmpty() || !interests.isEmpty())) {
+            if (interests.size() >= skills.size()) {
+                interests.remove(interests.size() - 1);
+            } else {
+                skills.remove(skills.size() - 1);
+            }
+            prompt = render(prefix, goal, skills, interests);
+        }
+
+        if (estimateTokens(prompt) > maxPromptTokens) {
+            log.warn("Roadmap prompt is ~{} tokens, over the budget of {}", estimateTokens(prompt), maxPromptTokens);
+        }
+        return prompt;
+    }
+
+    //Asks the model to fix its previous reply instead of starting over. The original prompt stays as the
+    //prefix so its KV cache is reused, and only the problems found are listed rather than the whole schema again
+    public String repair(String prompt, String previousOutput, List<String> problems) {
+        StringBuilder repair = new StringBuilder(prompt.length() + previousOutput.length() + 512).append(prompt);
+        repair.append("\nYour previous reply:\n").append(previousOutput.trim()).append("\n\n");
+        repair.append("That reply has these problems:\n");
+        for (String problem : problems) {
+            repair.append("- ").append(problem).append('\n');
+        }
+        repair.append("Reply with the complete corrected JSON object. Keep everything that is not listed above unchanged.\n");
+        return repair.toString();
+    }
+
+    public OllamaRequest request(String prompt, boolean stream) {
+        return request(prompt, stream, RoadMapDto.class);
+    }
+
+    public OllamaRequest request(String prompt, boolean stream, Class<?> responseType) {
+        return new OllamaRequest(aiModel, prompt, stream, roadmapJsonSchema.format(responseType), keepAlive,
+                Map.of("num_ctx", contextTokens));
+    }
+
+    static int estimateTokens(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private String render(String prefix, String goal, List<String> skills, List<String> interests) {
+        StringBuilder prompt = new StringBuilder(prefix.length() + 256).append(prefix);
+        prompt.append("Goal: ").append(goal.isEmpty() ? "not specified" : goal).append('\n');
+        prompt.append("Current skills: ").append(skills.isEmpty() ? "none" : String.join(", ", skills)).append('\n');
+        prompt.append("Interests: ").append(interests.isEmpty() ? "none" : String.join(", ", interests)).append('\n');
+        return prompt.toString();
+    }
+
+    private static List<String> nonBlank(List<String> values) {
+        List<String> result = new ArrayList<>();
+        if (values == null) {
+            return result;
+        }
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                result.add(value.trim());
+            }
+        }
+        return result;
+    }
+
+    private static String truncate(String goal) {
+        if (goal == null) {
+            return "";
+        }
+        String trimmed = goal.trim();
+        return trimmed.length() > MAX_GOAL_LENGTH ? trimmed.substring(0, MAX_GOAL_LENGTH) : trimmed;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.example.NextSteps.dto.roadmap.stage.StageProgressTracker;
+import com.example.NextSteps.entities.Profile;
+import com.example.NextSteps.repository.RoadmapEmbeddingRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Reuses the roadmap of the most similar earlier profile when it is close enough, which the exact-match cache cannot do
+//for "Linux, Git" versus "Linux, Git, Bash". Profiles are embedded through Ollama's /api/embed, the embedding of every
+//generated roadmap is kept in roadmap_embeddings and in an HNSW graph loaded at startup and grown as roadmaps are saved.
+//Only generated roadmaps are indexed, an adapted copy is never used as the source of another one.
+@Slf4j
+@Component
+public class RoadmapSimilarityIndex {
+
+    // The next candidates are tried when the nearest roadmap has been deleted since it was indexed
+    private static final int CANDIDATES = 3;
+
+    private final OllamaNodePool ollamaNodePool;
+    private final RoadmapEmbeddingRepository roadmapEmbeddingRepository;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final String embeddingModel;
+    private final String keepAlive;
+    private final double threshold;
+    private final Duration timeout;
+    private final int maxEntries;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+
+    // Created on the first embedding, its size decides the dimensions
+    private final ReentrantLock creation = new ReentrantLock();
+    private volatile HnswIndex index;
+
+    private final Timer embeddingTimer;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter failures;
+    private final AtomicInteger indexed = new AtomicInteger();
+
+    public RoadmapSimilarityIndex(OllamaNodePool ollamaNodePool,
+                                  RoadmapEmbeddingRepository roadmapEmbeddingRepository,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ai.similarity.enabled:true}") boolean enabled,
+                                  @Value("${ai.similarity.embedding-model:nomic-embed-text}") String embeddingModel,
+                                  @Value("${ai.ollama.keep-alive:30m}") String keepAlive,
+                                  @Value("${ai.similarity.threshold:0.92}") double threshold,
+                                  @Value("${ai.similarity.timeout-ms:5000}") long timeoutMs,
+                                  @Value("${ai.similarity.max-entries:100000}") int maxEntries,
+                                  @Value("${ai.similarity.m:16}") int m,
+                                  @Value("${ai.similarity.ef-construction:100}") int efConstruction,
+                                  @Value("${ai.similarity.ef-search:64}") int efSearch) {
+        this.ollamaNodePool = ollamaNodePool;
+        this.roadmapEmbeddingRepository = roadmapEmbeddingRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.embeddingModel = embeddingModel;
+        this.keepAlive = keepAlive;
+        this.threshold = threshold;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxEntries = maxEntries;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+
+        this.embeddingTimer = meterRegistry.timer("roadmap.similarity.embedding");
+        this.hits = meterRegistry.counter("roadmap.similarity.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("roadmap.similarity.lookups", "result", "miss");
+        this.failures = meterRegistry.counter("roadmap.similarity.lookups", "result", "error");
+        Gauge.builder("roadmap.similarity.index.size", indexed, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            roadmapEmbeddingRepository.forEachNewest(embeddingModel, maxEntries, this::addToIndex);
+            log.info("Loaded {} roadmap embeddings in {} ms",
+                    indexed.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            // Without the index every lookup misses and roadmaps are generated as before
+            log.warn("Failed to load roadmap embeddings", e);
+        }
+    }
+
+    //Empty when disabled or when Ollama could not embed the profile in time, the caller then just generates
+    public Mono<float[]> embed(Profile profile) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            OllamaEmbedRequest request = new OllamaEmbedRequest(embeddingModel, embeddingText(profile), keepAlive);
+            return ollamaNodePool.execute(client -> client.post()
+                            .uri("/api/embed")
+                            .bodyValue(request)
+                            .retrieve()
+                            .bodyToMono(OllamaEmbedResponse.class))
+                    .timeout(timeout)
+                    .filter(response -> response.embeddings() != null && response.embeddings().length > 0)
+                    .map(response -> response.embeddings()[0])
+                    .doOnNext(embedding -> embeddingTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS))
+                    .onErrorResume(e -> {
+                        failures.increment();
+                        log.debug("Failed to embed profile, generating without a similarity lookup", e);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    //The nearest roadmap within the threshold, adapted to this profile and serialised. Reads Postgres, so blocking.
+    public Optional<String> findSimilar(float[] embedding, Profile profile) {
+        HnswIndex current = index;
+        if (current == null || embedding.length != current.dimensions()) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        for (HnswIndex.Match match : current.search(embedding, CANDIDATES, efSearch)) {
+            if (match.similarity() < threshold) {
+                break;
+            }
+            Optional<String> document = roadmapEmbeddingRepository.findDocument(match.id());
+            if (document.isEmpty()) {
+                // Deleted since it was indexed, its embedding row went with it
+                current.remove(match.id());
+                indexed.set(current.size());
+                continue;
+            }
+            hits.increment();
+            return Optional.of(adapt(document.get(), profile, match));
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    //Called once a generated roadmap's row is saved. The graph is updated straight away, the row is written off the caller's thread.
+    public void remember(UUID roadmapId, float[] embedding) {
+        if (!enabled || embedding == null) {
+            return;
+        }
+        addToIndex(roadmapId, embedding);
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                roadmapEmbeddingRepository.save(roadmapId, embeddingModel, embedding);
+            } catch (RuntimeException e) {
+                log.warn("Failed to store the embedding for roadmap {}", roadmapId, e);
+            }
+        });
+    }
+
+    //For a roadmap rewritten since it was indexed, whose embedding no longer describes what it contains. It leaves the
+    //graph straight away; the profile it now answers is embedded, unless the caller already has that embedding, and
+    //stored off the caller's thread. If Ollama cannot embed it the roadmap just stops being a reuse source.
+    public void reindex(UUID roadmapId, float[] embedding, Profile profile) {
+        if (!enabled) {
+            return;
+        }
+        removeFromIndex(roadmapId);
+        (embedding != null ? Mono.just(embedding) : embed(profile))
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(current -> {
+                    roadmapEmbeddingRepository.replace(roadmapId, embeddingModel, current);
+                    addToIndex(roadmapId, current);
+                })
+                .switchIfEmpty(Mono.fromRunnable(() -> roadmapEmbeddingRepository.delete(roadmapId)))
+                .subscribe(null, e -> log.warn("Failed to re-index roadmap {}", roadmapId, e));
+    }
+
+    //Drops a roadmap from the graph straight away and its row off the caller's thread
+    public void forget(UUID roadmapId) {
+        if (!enabled) {
+            return;
+        }
+        removeFromIndex(roadmapId);
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                roadmapEmbeddingRepository.delete(roadmapId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete the embedding for roadmap {}", roadmapId, e);
+            }
+        });
+    }
+
+    public int size() {
+        return indexed.get();
+    }
+
+    private void removeFromIndex(UUID roadmapId) {
+        HnswIndex current = index;
+        if (current != null) {
+            current.remove(roadmapId);
+            indexed.set(current.size());
+        }
+    }
+
+    private void addToIndex(UUID roadmapId, float[] embedding) {
+        HnswIndex current = index;
+        if (current == null) {
+            creation.lock();
+            try {
+                if (index == null) {
+                    // Compactions rebuild the graph off the request that tipped it over
+                    index = new HnswIndex(embedding.length, m, efConstruction, 42,
+                            task -> Schedulers.boundedElastic().schedule(task));
+                }
+                current = index;
+            } finally {
+                creation.unlock();
+            }
+        }
+        // Removed nodes count too, they are held until the graph compacts itself
+        if (embedding.length != current.dimensions() || current.nodeCount() >= maxEntries) {
+            return;
+        }
+        current.add(roadmapId, embedding);
+        indexed.set(current.size());
+    }
+
+    //Progress, the prompt and the timings belong to the original user and generation, the courses are what is reused
+    private String adapt(String document, Profile profile, HnswIndex.Match match) {
+        try {
+            RoadMapDto roadmap = objectMapper.readValue(document, RoadMapDto.class);
+            if (profile.getGoalTitle() != null && !profile.getGoalTitle().isBlank()) {
+                roadmap.setTargetRole(profile.getGoalTitle().trim());
+            }
+            roadmap.setUpdatedAt(null);
+
+            List<Stage> stages = roadmap.getStages() != null ? roadmap.getStages() : List.of();
+            for (Stage stage : stages) {
+                List<Course> items = stage.getItems() != null ? stage.getItems() : List.of();
+                items.forEach(course -> course.setStatus(CourseStatus.NOT_STARTED));
+
+                StageProgressTracker progress = new StageProgressTracker();
+                progress.setTotalSteps(items.size());
+                progress.setCurrentStep(1);
+                progress.setPercent(0);
+                stage.setProgress(progress);
+            }
+
+            GenerationDetails details = roadmap.getGenerationDetails() != null
+                    ? roadmap.getGenerationDetails()
+                    : new GenerationDetails();
+            details.setPrompt(null);
+            details.setTimings(null);
+            details.setReusedFromRoadmapId(match.id().toString());
+            details.setSimilarity(match.similarity());
+            roadmap.setGenerationDetails(details);
+
+            return objectMapper.writeValueAsString(roadmap);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to adapt similar roadmap " + match.id(), e);
+        }
+    }
+
+    // Same normalisation as the cache key, so order and case do not move a profile in embedding space
+    static String embeddingText(Profile profile) {
+        return "Career goal: " + normalise(profile.getGoalTitle()) + "\n"
+                + "Skills: " + normalise(profile.getSkills()) + "\n"
+                + "Interests: " + normalise(profile.getInterests());
+    }
+
+    private static String normalise(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalise(List<String> values) {
+        if (values == null) {
+            return "";
+        }
+        TreeSet<String> normalised = new TreeSet<>();
+        for (String value : values) {
+            String item = normalise(value);
+            if (!item.isEmpty()) {
+                normalised.add(item);
+            }
+        }
+        return String.join(", ", normalised);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+
+public record RoadmapStreamEvent(
+        Type type,
+        String token,
+        Stage stage,
+        RoadMapDto roadmap
+) {
+
+    public enum Type {
+        TOKEN,
+        STAGE,
+        COMPLETE
+    }
+
+    public static RoadmapStreamEvent token(String token) {
+        return new RoadmapStreamEvent(Type.TOKEN, token, null, null);
+    }
+
+    public static RoadmapStreamEvent stage(Stage stage) {
+        return new RoadmapStreamEvent(Type.STAGE, null, stage, null);
+    }
+
+    public static RoadmapStreamEvent complete(RoadMapDto roadmap) {
+        return new RoadmapStreamEvent(Type.COMPLETE, null, null, roadmap);
+    }
+
+    public Object payload() {
+        return switch (type) {
+            case TOKEN -> token;
+            case STAGE -> stage;
+            case COMPLETE -> roadmap;
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.course.Course;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+//One per stage in a staged generation, the courses the model wrote for that stage
+@Data
+public class StageCourses {
+
+    @Valid
+    @NotEmpty
+    private List<Course> items;
+}
@@ -0,0 +1,20 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class StageOutline {
+
+    @NotBlank
+    private String stageId;
+
+    @Min(1)
+    private int order;
+
+    @NotBlank
+    private String title;
+
+    private String description;
+}
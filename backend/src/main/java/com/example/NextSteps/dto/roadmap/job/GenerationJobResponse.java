@@ -0,0 +1,36 @@
+package com.example.NextSteps.dto.roadmap.job;
+
+import com.example.NextSteps.entities.GenerationJob;
+import com.example.NextSteps.entities.GenerationJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GenerationJobResponse {
+
+    private UUID jobId;
+    private GenerationJobStatus status;
+    private UUID roadmapId;
+    private String errorMessage;
+    private int attempts;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime updatedAt;
+
+    public static GenerationJobResponse from(GenerationJob job) {
+        return new GenerationJobResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getRoadmapId(),
+                job.getErrorMessage(),
+                job.getAttempts(),
+                job.getCreatedAt(),
+                job.getUpdatedAt()
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.NextSteps.dto.roadmap.stage;
 
 import com.example.NextSteps.dto.roadmap.course.Course;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
@@ -23,9 +24,11 @@ public class Stage {
 
     private String description;
 
+    @Valid
     @NotNull
     private StageProgressTracker progress;
 
+    @Valid
     @NotEmpty
     private List<Course> items;
 }
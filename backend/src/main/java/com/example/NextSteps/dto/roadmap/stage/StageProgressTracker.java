@@ -1,9 +1,13 @@
 package com.example.NextSteps.dto.roadmap.stage;
 
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class StageProgressTracker {
 
@@ -17,4 +21,16 @@ public class StageProgressTracker {
     @Min(0)
     @Max(100)
     private int percent;
+
+    // Same figures RoadmapRepository.updateCourseStatus writes when a course's status changes
+    public static StageProgressTracker of(List<Course> items) {
+        int total = items.size();
+        int completed = (int) items.stream().filter(course -> course.getStatus() == CourseStatus.COMPLETED).count();
+
+        StageProgressTracker progress = new StageProgressTracker();
+        progress.setTotalSteps(total);
+        progress.setCurrentStep(Math.max(1, Math.min(completed + 1, total)));
+        progress.setPercent(total == 0 ? 0 : completed * 100 / total);
+        return progress;
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.NextSteps.dto.userimport;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportError {
+
+    //1-based position of the record in the file, the CSV header is not counted
+    private long record;
+    private String message;
+}
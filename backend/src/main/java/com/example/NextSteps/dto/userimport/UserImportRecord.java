@@ -0,0 +1,42 @@
+package com.example.NextSteps.dto.userimport;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+//One user from a partner file. CSV headers and NDJSON keys may be camelCase or snake_case,
+//in CSV the skills and interests are separated by ';' inside their column.
+@Data
+public class UserImportRecord {
+
+    private UUID id;
+
+    @NotBlank
+    @Email
+    @Size(max = 255)
+    private String email;
+
+    // Plain text, or an existing BCrypt hash which is kept as it is
+    @NotBlank
+    private String password;
+
+    @JsonAlias("first_name")
+    @Size(max = 100)
+    private String firstName;
+
+    @Size(max = 100)
+    private String surname;
+
+    @JsonAlias("goal_title")
+    @Size(max = 255)
+    private String goalTitle;
+
+    private List<String> skills;
+
+    private List<String> interests;
+}
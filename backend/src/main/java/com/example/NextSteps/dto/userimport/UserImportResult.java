@@ -0,0 +1,25 @@
+package com.example.NextSteps.dto.userimport;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportResult {
+
+    private long records;
+    private long rejected;
+    //Records whose email appeared earlier in the same file, the first one wins
+    private long duplicates;
+    private long usersCreated;
+    //Records whose email already belonged to a user, their password is never changed
+    private long existingUsers;
+    private long profilesWritten;
+    //Only the first few rejections, the count above covers all of them
+    private List<UserImportError> errors;
+    private long elapsedMs;
+}
@@ -0,0 +1,8 @@
+package com.example.NextSteps.entities;
+
+public enum GenerationJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
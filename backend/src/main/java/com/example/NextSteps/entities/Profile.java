@@ -1,5 +1,6 @@
 package com.example.NextSteps.entities;
 
+import com.example.NextSteps.entities.listener.ProfileChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -9,6 +10,7 @@ import java.util.UUID;
 
 @Data
 @Entity
+@EntityListeners(ProfileChangeListener.class)
 @Table(name = "profiles")
 public class Profile {
 
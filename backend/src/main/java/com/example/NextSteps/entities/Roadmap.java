@@ -2,6 +2,8 @@ package com.example.NextSteps.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -22,11 +24,21 @@ public class Roadmap {
     @Column(name = "title", nullable = false, length = 255)
     private String title;
 
-    @Column(name = "raw_ai_output", columnDefinition = "text")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "raw_ai_output", columnDefinition = "jsonb")
     private String rawAiOutput;
 
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
+    @Column(name = "stage_count", nullable = false)
+    private int stageCount;
+
+    @Column(name = "course_count", nullable = false)
+    private int courseCount;
+
+    @Column(name = "completed_course_count", nullable = false)
+    private int completedCourseCount;
+
 }
 
@@ -0,0 +1,26 @@
+package com.example.NextSteps.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Entity
+@Table(name = "roadmap_cache")
+public class RoadmapCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", nullable = false, length = 64)
+    private String cacheKey;
+
+    @Column(name = "model", nullable = false, length = 255)
+    private String model;
+
+    @Column(name = "roadmap_json", nullable = false, columnDefinition = "text")
+    private String roadmapJson;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+}
@@ -0,0 +1,32 @@
+package com.example.NextSteps.entities.listener;
+
+import com.example.NextSteps.entities.Profile;
+import com.example.NextSteps.entities.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+//JPA entity listener on Profile and User, so any write through Hibernate announces a ProfileChangedEvent for whatever
+//caches the profile. Boot hands Hibernate the Spring bean container, which is what lets a listener take constructor arguments.
+@Component
+public class ProfileChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProfileChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (entity instanceof Profile profile) {
+            eventPublisher.publishEvent(new ProfileChangedEvent(profile.getUserId()));
+        } else if (entity instanceof User user) {
+            eventPublisher.publishEvent(new ProfileChangedEvent(user.getId()));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.NextSteps.entities.listener;
+
+import java.util.UUID;
+
+//Published synchronously on the writing thread, so listeners still see the transaction that made the change
+public record ProfileChangedEvent(UUID userId) {
+}
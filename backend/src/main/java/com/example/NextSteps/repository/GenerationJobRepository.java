@@ -0,0 +1,39 @@
+package com.example.NextSteps.repository;
+
+import com.example.NextSteps.entities.GenerationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface GenerationJobRepository extends JpaRepository<GenerationJob, UUID> {
+
+    //SKIP LOCKED lets every backend instance poll the same table without two of them claiming the same job.
+    //Running jobs whose lock has gone stale belonged to an instance that died mid-generation, so they are claimed again.
+    @Query(value = """
+            SELECT * FROM generation_jobs
+            WHERE status = 'PENDING'
+               OR (status = 'RUNNING' AND locked_at < :staleBefore)
+            ORDER BY created_at
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<GenerationJob> findNextClaimable(@Param("staleBefore") OffsetDateTime staleBefore);
+
+    //Keeps the locks of jobs still running on this worker fresh, so they are not taken for stale and claimed again
+    @Modifying
+    @Query(value = """
+            UPDATE generation_jobs SET locked_at = :now, updated_at = :now
+            WHERE id IN (:jobIds) AND status = 'RUNNING' AND locked_by = :workerId
+            """, nativeQuery = true)
+    int refreshLocks(@Param("jobIds") Collection<UUID> jobIds,
+                     @Param("workerId") String workerId,
+                     @Param("now") OffsetDateTime now);
+}
@@ -1,8 +1,11 @@
 package com.example.NextSteps.repository;
 
+import com.example.NextSteps.dto.ProfileResponse;
 import com.example.NextSteps.entities.Profile;
 import com.example.NextSteps.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -17,4 +20,14 @@ public interface ProfileRepository extends JpaRepository<Profile, UUID> {
     Optional<Profile> findByUserId(UUID userId);
 
     boolean existsByUserId(UUID userId);
+
+    //The profile page in one round trip. Left join so a user without a profile still comes back with just the email.
+    @Query("""
+            select new com.example.NextSteps.dto.ProfileResponse(u.id, u.email, p.firstName, p.surname, p.goalTitle,
+                                                                 p.skills, p.interests, p.updatedAt)
+            from User u
+            left join Profile p on p.userId = u.id
+            where u.id = :userId
+            """)
+    Optional<ProfileResponse> findProfileResponseByUserId(@Param("userId") UUID userId);
 }
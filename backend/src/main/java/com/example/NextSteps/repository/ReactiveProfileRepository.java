@@ -0,0 +1,54 @@
+package com.example.NextSteps.repository;
+
+import com.example.NextSteps.entities.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+//Profile and user lookups for the reactive endpoints. The Profile is only filled in for generation, its user is left unset.
+@Repository
+public class ReactiveProfileRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveProfileRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Profile> findByUserId(UUID userId) {
+        return databaseClient.sql("""
+                        SELECT user_id, first_name, surname, goal_title, skills, interests, updated_at
+                        FROM profiles
+                        WHERE user_id = :userId
+                        """)
+                .bind("userId", userId)
+                .map(row -> {
+                    Profile profile = new Profile();
+                    profile.setUserId(row.get("user_id", UUID.class));
+                    profile.setFirstName(row.get("first_name", String.class));
+                    profile.setSurname(row.get("surname", String.class));
+                    profile.setGoalTitle(row.get("goal_title", String.class));
+                    profile.setSkills(toList(row.get("skills", String[].class)));
+                    profile.setInterests(toList(row.get("interests", String[].class)));
+                    profile.setUpdatedAt(row.get("updated_at", OffsetDateTime.class));
+                    return profile;
+                })
+                .one();
+    }
+
+    public Mono<Boolean> existsUserById(UUID userId) {
+        return databaseClient.sql("SELECT EXISTS (SELECT 1 FROM users WHERE id = :userId) AS present")
+                .bind("userId", userId)
+                .map(row -> Boolean.TRUE.equals(row.get("present", Boolean.class)))
+                .one();
+    }
+
+    private static List<String> toList(String[] values) {
+        return values == null ? null : Arrays.asList(values);
+    }
+}
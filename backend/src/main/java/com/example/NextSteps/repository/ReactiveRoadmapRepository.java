@@ -0,0 +1,96 @@
+package com.example.NextSteps.repository;
+
+import com.example.NextSteps.dto.roadmap.RoadmapSummary;
+import com.example.NextSteps.dto.roadmap.RoadmapSummaryView;
+import com.example.NextSteps.entities.Roadmap;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+//R2DBC counterpart of RoadmapRepository for the reactive endpoints, the same table and the same rows
+@Repository
+public class ReactiveRoadmapRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveRoadmapRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    private record SummaryRow(UUID id, String title, OffsetDateTime createdAt, int stageCount, int courseCount,
+                              int completedCourseCount) implements RoadmapSummaryView {
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public OffsetDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public int getStageCount() {
+            return stageCount;
+        }
+
+        public int getCourseCount() {
+            return courseCount;
+        }
+
+        public int getCompletedCourseCount() {
+            return completedCourseCount;
+        }
+    }
+
+    public Mono<Void> insert(Roadmap roadmap) {
+        return databaseClient.sql("""
+                        INSERT INTO roadmaps (id, user_id, title, raw_ai_output, created_at,
+                                              stage_count, course_count, completed_course_count)
+                        VALUES (:id, :userId, :title, CAST(:rawAiOutput AS jsonb), :createdAt,
+                                :stageCount, :courseCount, :completedCourseCount)
+                        """)
+                .bind("id", roadmap.getId())
+                .bind("userId", roadmap.getUser().getId())
+                .bind("title", roadmap.getTitle())
+                .bind("rawAiOutput", roadmap.getRawAiOutput())
+                .bind("createdAt", roadmap.getCreatedAt())
+                .bind("stageCount", roadmap.getStageCount())
+                .bind("courseCount", roadmap.getCourseCount())
+                .bind("completedCourseCount", roadmap.getCompletedCourseCount())
+                .then();
+    }
+
+    // Read back as text, Jackson turns it into a RoadMapDto anyway
+    public Mono<String> findDocumentById(UUID roadmapId) {
+        return databaseClient.sql("SELECT CAST(raw_ai_output AS text) AS document FROM roadmaps WHERE id = :id")
+                .bind("id", roadmapId)
+                .map(row -> row.get("document", String.class))
+                .one();
+    }
+
+    //Rows are decoded as the subscriber asks for them, newest first through the (user_id, created_at, id) index
+    public Flux<RoadmapSummary> findSummariesByUserId(UUID userId) {
+        return databaseClient.sql("""
+                        SELECT id, title, created_at, stage_count, course_count, completed_course_count
+                        FROM roadmaps
+                        WHERE user_id = :userId
+                        ORDER BY created_at DESC, id DESC
+                        """)
+                .bind("userId", userId)
+                .map(row -> RoadmapSummary.from(new SummaryRow(
+                        row.get("id", UUID.class),
+                        row.get("title", String.class),
+                        row.get("created_at", OffsetDateTime.class),
+                        row.get("stage_count", Integer.class),
+                        row.get("course_count", Integer.class),
+                        row.get("completed_course_count", Integer.class))))
+                .all();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.NextSteps.repository;
+
+import com.example.NextSteps.dto.roadmap.batch.RoadmapBatchFailure;
+import com.example.NextSteps.entities.GenerationJobStatus;
+import com.example.NextSteps.entities.Roadmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+//Plain JDBC so a cohort's items and roadmaps go to Postgres as batched statements rather than one
+//INSERT per entity. roadmap_batch_items is not mapped in JPA, it is only ever written and counted here.
+@Repository
+public class RoadmapBatchItemRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoadmapBatchItemRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertPending(UUID batchId, List<UUID> userIds, OffsetDateTime now) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO roadmap_batch_items (batch_id, user_id, status, updated_at)
+                        VALUES (?, ?, ?, ?)
+                        """,
+                userIds,
+                userIds.size(),
+                (statement, userId) -> {
+                    statement.setObject(1, batchId);
+                    statement.setObject(2, userId);
+                    statement.setString(3, GenerationJobStatus.PENDING.name());
+                    statement.setObject(4, now);
+                });
+    }
+
+    public void insertFailed(UUID batchId, List<RoadmapBatchFailure> failures, OffsetDateTime now) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO roadmap_batch_items (batch_id, user_id, status, error_message, updated_at)
+                        VALUES (?, ?, ?, ?, ?)
+                        """,
+                failures,
+                failures.size(),
+                (statement, failure) -> {
+                    statement.setObject(1, batchId);
+                    statement.setObject(2, failure.getUserId());
+                    statement.setString(3, GenerationJobStatus.FAILED.name());
+                    statement.setString(4, failure.getErrorMessage());
+                    statement.setObject(5, now);
+                });
+    }
+
+    //The roadmaps and their items are written together, an item is never COMPLETED without its roadmap row
+    @Transactional
+    public void saveCompleted(UUID batchId, List<Roadmap> roadmaps) {
+        if (roadmaps.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO roadmaps (id, user_id, title, raw_ai_output, created_at,
+                                              stage_count, course_count, completed_course_count)
+                        VALUES (?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?)
+                        """,
+                roadmaps,
+                roadmaps.size(),
+                (statement, roadmap) -> {
+                    statement.setObject(1, roadmap.getId());
+                    statement.setObject(2, roadmap.getUser().getId());
+                    statement.setString(3, roadmap.getTitle());
+                    statement.setString(4, roadmap.getRawAiOutput());
+                    statement.setObject(5, roadmap.getCreatedAt());
+                    statement.setInt(6, roadmap.getStageCount());
+                    statement.setInt(7, roadmap.getCourseCount());
+                    statement.setInt(8, roadmap.getCompletedCourseCount());
+                });
+
+        OffsetDateTime now = OffsetDateTime.now();
+        jdbcTemplate.batchUpdate("""
+                        UPDATE roadmap_batch_items SET status = ?, roadmap_id = ?, error_message = NULL, updated_at = ?
+                        WHERE batch_id = ? AND user_id = ?
+                        """,
+                roadmaps,
+                roadmaps.size(),
+                (statement, roadmap) -> {
+                    statement.setString(1, GenerationJobStatus.COMPLETED.name());
+                    statement.setObject(2, roadmap.getId());
+                    statement.setObject(3, now);
+                    statement.setObject(4, batchId);
+                    statement.setObject(5, roadmap.getUser().getId());
+                });
+    }
+
+    public void markFailed(UUID batchId, List<RoadmapBatchFailure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        jdbcTemplate.batchUpdate("""
+                        UPDATE roadmap_batch_items SET status = ?, error_message = ?, updated_at = ?
+                        WHERE batch_id = ? AND user_id = ?
+                        """,
+                failures,
+                failures.size(),
+                (statement, failure) -> {
+                    statement.setString(1, GenerationJobStatus.FAILED.name());
+                    statement.setString(2, failure.getErrorMessage());
+                    statement.setObject(3, now);
+                    statement.setObject(4, batchId);
+                    statement.setObject(5, failure.getUserId());
+                });
+    }
+
+    public Map<GenerationJobStatus, Integer> countByStatus(UUID batchId) {
+        Map<GenerationJobStatus, Integer> counts = new EnumMap<>(GenerationJobStatus.class);
+        jdbcTemplate.query("""
+                        SELECT status, count(*) AS items FROM roadmap_batch_items
+                        WHERE batch_id = ?
+                        GROUP BY status
+                        """,
+                row -> {
+                    counts.put(GenerationJobStatus.valueOf(row.getString("status")), row.getInt("items"));
+                },
+                batchId);
+        return counts;
+    }
+
+    public List<RoadmapBatchFailure> findFailures(UUID batchId) {
+        return jdbcTemplate.query("""
+                        SELECT user_id, error_message FROM roadmap_batch_items
+                        WHERE batch_id = ? AND status = ?
+                        ORDER BY user_id
+                        """,
+                (row, rowNum) -> new RoadmapBatchFailure(row.getObject("user_id", UUID.class), row.getString("error_message")),
+                batchId,
+                GenerationJobStatus.FAILED.name());
+    }
+}
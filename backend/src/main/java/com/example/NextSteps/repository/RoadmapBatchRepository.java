@@ -0,0 +1,11 @@
+package com.example.NextSteps.repository;
+
+import com.example.NextSteps.entities.RoadmapBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface RoadmapBatchRepository extends JpaRepository<RoadmapBatch, UUID> {
+}
@@ -0,0 +1,20 @@
+package com.example.NextSteps.repository;
+
+import com.example.NextSteps.entities.RoadmapCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface RoadmapCacheRepository extends JpaRepository<RoadmapCacheEntry, String> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from RoadmapCacheEntry e where e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") OffsetDateTime cutoff);
+}
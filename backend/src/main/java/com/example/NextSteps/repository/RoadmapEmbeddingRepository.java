@@ -0,0 +1,87 @@
+package com.example.NextSteps.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+//Profile embeddings of generated roadmaps, read and written in JDBC since they are never needed as entities
+@Repository
+public class RoadmapEmbeddingRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoadmapEmbeddingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void save(UUID roadmapId, String model, float[] embedding) {
+        write("""
+                INSERT INTO roadmap_embeddings (roadmap_id, model, embedding, created_at)
+                VALUES (?, ?, ?, now())
+                ON CONFLICT (roadmap_id) DO NOTHING
+                """, roadmapId, model, embedding);
+    }
+
+    // For a regenerated roadmap, which now answers a different profile
+    public void replace(UUID roadmapId, String model, float[] embedding) {
+        write("""
+                INSERT INTO roadmap_embeddings (roadmap_id, model, embedding, created_at)
+                VALUES (?, ?, ?, now())
+                ON CONFLICT (roadmap_id) DO UPDATE
+                    SET model = EXCLUDED.model, embedding = EXCLUDED.embedding, created_at = EXCLUDED.created_at
+                """, roadmapId, model, embedding);
+    }
+
+    private void write(String sql, UUID roadmapId, String model, float[] embedding) {
+        Float[] boxed = new Float[embedding.length];
+        for (int i = 0; i < embedding.length; i++) {
+            boxed[i] = embedding[i];
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setObject(1, roadmapId);
+            statement.setString(2, model);
+            statement.setArray(3, connection.createArrayOf("float4", boxed));
+            return statement;
+        });
+    }
+
+    //Newest first
+    public void forEachNewest(String model, int limit, BiConsumer<UUID, float[]> consumer) {
+        jdbcTemplate.query("""
+                        SELECT e.roadmap_id, e.embedding
+                        FROM roadmap_embeddings e
+                        WHERE e.model = ?
+                        ORDER BY e.created_at DESC
+                        LIMIT ?
+                        """,
+                (RowCallbackHandler) rows -> {
+                    Array array = rows.getArray("embedding");
+                    Float[] boxed = (Float[]) array.getArray();
+                    float[] embedding = new float[boxed.length];
+                    for (int i = 0; i < boxed.length; i++) {
+                        embedding[i] = boxed[i];
+                    }
+                    array.free();
+                    consumer.accept(rows.getObject("roadmap_id", UUID.class), embedding);
+                },
+                model, limit);
+    }
+
+    public Optional<String> findDocument(UUID roadmapId) {
+        List<String> documents = jdbcTemplate.queryForList(
+                "SELECT raw_ai_output::text FROM roadmaps WHERE id = ?", String.class, roadmapId);
+        return documents.stream().findFirst();
+    }
+
+    public void delete(UUID roadmapId) {
+        jdbcTemplate.update("DELETE FROM roadmap_embeddings WHERE roadmap_id = ?", roadmapId);
+    }
+}
@@ -1,11 +1,22 @@
 package com.example.NextSteps.repository;
 
+import com.example.NextSteps.dto.roadmap.RoadmapDocumentView;
+import com.example.NextSteps.dto.roadmap.RoadmapSummaryView;
+import com.example.NextSteps.dto.roadmap.UserRoadmapSummaryView;
 import com.example.NextSteps.entities.Roadmap;
 import com.example.NextSteps.entities.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -18,4 +29,155 @@ public interface RoadmapRepository extends JpaRepository<Roadmap, UUID> {
     List<Roadmap> findByUserIdOrderByCreatedAtDesc(UUID userId);
 
     long countByUserId(UUID userId);
+
+    @Query("""
+            select r.id as id, r.title as title, r.createdAt as createdAt, r.stageCount as stageCount,
+                   r.courseCount as courseCount, r.completedCourseCount as completedCourseCount
+            from Roadmap r
+            where r.user.id = :userId
+            order by r.createdAt desc, r.id desc
+            """)
+    List<RoadmapSummaryView> findSummariesByUserId(@Param("userId") UUID userId, Limit limit);
+
+    //Keyset page after (createdAt, id). The extra createdAt <= bound gives Postgres a start point in the
+    //(user_id, created_at, id) index, so later pages cost the same as the first
+    @Query("""
+            select r.id as id, r.title as title, r.createdAt as createdAt, r.stageCount as stageCount,
+                   r.courseCount as courseCount, r.completedCourseCount as completedCourseCount
+            from Roadmap r
+            where r.user.id = :userId
+              and r.createdAt <= :createdAt
+              and (r.createdAt < :createdAt or r.id < :id)
+            order by r.createdAt desc, r.id desc
+            """)
+    List<RoadmapSummaryView> findSummariesByUserIdAfter(@Param("userId") UUID userId,
+                                                        @Param("createdAt") OffsetDateTime createdAt,
+                                                        @Param("id") UUID id,
+                                                        Limit limit);
+
+    //The GraphQL batches below load a level of the query for every parent at once, so N users cost one query each
+    //The newest first roadmaps of each user, ranked in Postgres along idx_roadmaps_user_id_created_at_id so a user's
+    //older roadmaps are never read. Aliases are quoted so the projection sees them in camel case.
+    @Query(value = """
+            SELECT id, user_id AS "userId", title, created_at AS "createdAt", stage_count AS "stageCount",
+                   course_count AS "courseCount", completed_course_count AS "completedCourseCount"
+            FROM (SELECT r.id, r.user_id, r.title, r.created_at, r.stage_count, r.course_count, r.completed_course_count,
+                         row_number() OVER (PARTITION BY r.user_id ORDER BY r.created_at DESC, r.id DESC) AS position
+                  FROM roadmaps r
+                  WHERE r.user_id IN (:userIds)) ranked
+            WHERE position <= :first
+            ORDER BY created_at DESC, id DESC
+            """, nativeQuery = true)
+    List<UserRoadmapSummaryView> findSummariesByUserIdIn(@Param("userIds") Collection<UUID> userIds,
+                                                         @Param("first") int first);
+
+    @Query("""
+            select r.id as id, r.user.id as userId, r.title as title, r.createdAt as createdAt, r.stageCount as stageCount,
+                   r.courseCount as courseCount, r.completedCourseCount as completedCourseCount
+            from Roadmap r
+            where r.id = :id
+            """)
+    Optional<UserRoadmapSummaryView> findSummaryById(@Param("id") UUID id);
+
+    @Query("select r.id as id, r.rawAiOutput as document from Roadmap r where r.id in :ids")
+    List<RoadmapDocumentView> findDocumentsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    //The searches below use @> containment so Postgres can answer them from the GIN index on raw_ai_output,
+    //only ids come back and no roadmap document is loaded into the JVM
+    @Query(value = """
+            SELECT r.id FROM roadmaps r
+            WHERE r.user_id = :userId
+              AND r.raw_ai_output @> jsonb_build_object('stages', jsonb_build_array(
+                    jsonb_build_object('items', jsonb_build_array(
+                            jsonb_build_object('title', CAST(:courseTitle AS text))))))
+            ORDER BY r.created_at DESC
+            """, nativeQuery = true)
+    List<UUID> findIdsByUserIdContainingCourse(@Param("userId") UUID userId, @Param("courseTitle") String courseTitle);
+
+    @Query(value = """
+            SELECT r.id FROM roadmaps r
+            WHERE r.user_id = :userId
+              AND r.raw_ai_output @> jsonb_build_object('stages', jsonb_build_array(
+                    jsonb_build_object('items', jsonb_build_array(
+                            jsonb_build_object('status', CAST(:status AS text))))))
+            ORDER BY r.created_at DESC
+            """, nativeQuery = true)
+    List<UUID> findIdsByUserIdWithCourseStatus(@Param("userId") UUID userId, @Param("status") String status);
+
+    //Sets one course's status and recomputes its stage's progress inside Postgres, in a single statement.
+    //target finds the array positions of the stage and course, progress counts the stage's completed
+    //courses as they will be after the update, and the UPDATE writes only those paths of the document.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH target AS (
+                SELECT s.idx - 1 AS stage_idx,
+                       i.idx - 1 AS item_idx,
+                       i.item ->> 'status' AS old_status,
+                       s.stage -> 'items' AS items
+                FROM roadmaps r,
+                     jsonb_array_elements(r.raw_ai_output -> 'stages') WITH ORDINALITY AS s(stage, idx),
+                     jsonb_array_elements(s.stage -> 'items') WITH ORDINALITY AS i(item, idx)
+                WHERE r.id = :roadmapId
+                  AND s.stage ->> 'stageId' = CAST(:stageId AS text)
+                  AND i.item ->> 'itemId' = CAST(:itemId AS text)
+                LIMIT 1
+            ),
+            progress AS (
+                SELECT t.stage_idx,
+                       t.item_idx,
+                       t.old_status,
+                       jsonb_array_length(t.items) AS total,
+                       (SELECT count(*)
+                        FROM jsonb_array_elements(t.items) WITH ORDINALITY AS x(item, idx)
+                        WHERE CASE WHEN x.idx - 1 = t.item_idx THEN CAST(:status AS text) ELSE x.item ->> 'status' END
+                              = 'COMPLETED') AS completed
+                FROM target t
+            )
+            UPDATE roadmaps r
+            SET raw_ai_output = jsonb_set(
+                    jsonb_set(
+                        jsonb_set(r.raw_ai_output,
+                                  ARRAY['stages', CAST(p.stage_idx AS text), 'items', CAST(p.item_idx AS text), 'status'],
+                                  to_jsonb(CAST(:status AS text))),
+                        ARRAY['stages', CAST(p.stage_idx AS text), 'progress'],
+                        COALESCE(r.raw_ai_output -> 'stages' -> CAST(p.stage_idx AS int) -> 'progress', CAST('{}' AS jsonb))
+                            || jsonb_build_object(
+                                'totalSteps', p.total,
+                                'currentStep', LEAST(p.completed + 1, p.total),
+                                'percent', p.completed * 100 / p.total)),
+                    ARRAY['updatedAt'],
+                    to_jsonb(now())),
+                completed_course_count = r.completed_course_count
+                    + CASE WHEN CAST(:status AS text) = 'COMPLETED' THEN 1 ELSE 0 END
+                    - CASE WHEN p.old_status = 'COMPLETED' THEN 1 ELSE 0 END
+            FROM progress p
+            WHERE r.id = :roadmapId
+            """, nativeQuery = true)
+    int updateCourseStatus(@Param("roadmapId") UUID roadmapId,
+                           @Param("stageId") String stageId,
+                           @Param("itemId") String itemId,
+                           @Param("status") String status);
+
+    //Swaps in a regenerated document, but only while the stored one is still the one the regeneration started from,
+    //so a course status changed in the meantime makes this update nothing instead of being overwritten
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE roadmaps
+            SET raw_ai_output = CAST(:document AS jsonb),
+                title = :title,
+                stage_count = :stageCount,
+                course_count = :courseCount,
+                completed_course_count = :completedCourseCount
+            WHERE id = :roadmapId
+              AND raw_ai_output = CAST(:previous AS jsonb)
+            """, nativeQuery = true)
+    int replaceDocument(@Param("roadmapId") UUID roadmapId,
+                        @Param("previous") String previous,
+                        @Param("document") String document,
+                        @Param("title") String title,
+                        @Param("stageCount") int stageCount,
+                        @Param("courseCount") int courseCount,
+                        @Param("completedCourseCount") int completedCourseCount);
 }
@@ -0,0 +1,217 @@
+package com.example.NextSteps.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+//COPYs imported users into a temporary staging table and merges them into users and profiles with two set-based
+//statements. Everything happens on one connection in one transaction, so a failed import leaves nothing behind and
+//the staging table disappears on commit.
+@Repository
+public class UserImportRepository {
+
+    private final DataSource dataSource;
+
+    public UserImportRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    //A null passwordHash marks a record whose email already belonged to a user when it was staged
+    public record StagedUser(long record, UUID id, String email, String passwordHash, String firstName, String surname,
+                             String goalTitle, List<String> skills, List<String> interests) {
+    }
+
+    public record MergeCounts(long staged, long distinctEmails, long usersCreated, long profilesWritten) {
+    }
+
+    public Session open() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            return new Session(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    public static class Session implements AutoCloseable {
+
+        private final Connection connection;
+        private final CopyManager copyManager;
+        private boolean committed;
+
+        private Session(Connection connection) throws SQLException {
+            this.connection = connection;
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                // Temporary tables are not WAL-logged, which is most of what makes staging cheap
+                statement.execute("""
+                        CREATE TEMP TABLE user_import_staging (
+                            record BIGINT NOT NULL,
+                            id UUID NOT NULL,
+                            email VARCHAR(255) NOT NULL,
+                            password_hash VARCHAR(255),
+                            first_name VARCHAR(100),
+                            surname VARCHAR(100),
+                            goal_title VARCHAR(255),
+                            skills TEXT[],
+                            interests TEXT[]
+                        ) ON COMMIT DROP
+                        """);
+            }
+            this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        }
+
+        public Set<String> findExistingEmails(Collection<String> emails) throws SQLException {
+            Set<String> existing = new HashSet<>();
+            if (emails.isEmpty()) {
+                return existing;
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT email FROM users WHERE email = ANY (?)")) {
+                Array array = connection.createArrayOf("text", emails.toArray());
+                statement.setArray(1, array);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        existing.add(rows.getString(1));
+                    }
+                }
+                array.free();
+            }
+            return existing;
+        }
+
+        public void stage(List<StagedUser> users) throws SQLException, IOException {
+            if (users.isEmpty()) {
+                return;
+            }
+            StringBuilder csv = new StringBuilder(users.size() * 128);
+            for (StagedUser user : users) {
+                csv.append(user.record()).append(',');
+                csv.append(user.id()).append(',');
+                appendField(csv, user.email()).append(',');
+                appendField(csv, user.passwordHash()).append(',');
+                appendField(csv, user.firstName()).append(',');
+                appendField(csv, user.surname()).append(',');
+                appendField(csv, user.goalTitle()).append(',');
+                appendField(csv, arrayLiteral(user.skills())).append(',');
+                appendField(csv, arrayLiteral(user.interests())).append('\n');
+            }
+            copyManager.copyIn("""
+                    COPY user_import_staging (record, id, email, password_hash, first_name, surname, goal_title, skills, interests)
+                    FROM STDIN WITH (FORMAT csv)
+                    """, new StringReader(csv.toString()));
+        }
+
+        //The first record for an email wins. Existing users are never touched, their profile is only
+        //overwritten when updateExistingProfiles is set.
+        public MergeCounts merge(boolean updateExistingProfiles) throws SQLException {
+            long staged;
+            long distinctEmails;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT count(*), count(DISTINCT email) FROM user_import_staging")) {
+                rows.next();
+                staged = rows.getLong(1);
+                distinctEmails = rows.getLong(2);
+            }
+
+            long usersCreated;
+            try (Statement statement = connection.createStatement()) {
+                usersCreated = statement.executeUpdate("""
+                        WITH staged AS (
+                            SELECT DISTINCT ON (email) * FROM user_import_staging ORDER BY email, record
+                        )
+                        INSERT INTO users (id, email, password_hash, created_at)
+                        SELECT id, email, password_hash, now() FROM staged
+                        WHERE password_hash IS NOT NULL
+                        ON CONFLICT DO NOTHING
+                        """);
+            }
+
+            long profilesWritten;
+            try (Statement statement = connection.createStatement()) {
+                profilesWritten = statement.executeUpdate(updateExistingProfiles ? """
+                        WITH staged AS (
+                            SELECT DISTINCT ON (email) * FROM user_import_staging ORDER BY email, record
+                        )
+                        INSERT INTO profiles (user_id, first_name, surname, goal_title, skills, interests, updated_at)
+                        SELECT u.id, s.first_name, s.surname, s.goal_title, s.skills, s.interests, now()
+                        FROM staged s
+                        JOIN users u ON u.email = s.email
+                        ON CONFLICT (user_id) DO UPDATE SET
+                            first_name = EXCLUDED.first_name,
+                            surname = EXCLUDED.surname,
+                            goal_title = EXCLUDED.goal_title,
+                            skills = EXCLUDED.skills,
+                            interests = EXCLUDED.interests,
+                            updated_at = EXCLUDED.updated_at
+                        """ : """
+                        WITH staged AS (
+                            SELECT DISTINCT ON (email) * FROM user_import_staging ORDER BY email, record
+                        )
+                        INSERT INTO profiles (user_id, first_name, surname, goal_title, skills, interests, updated_at)
+                        SELECT u.id, s.first_name, s.surname, s.goal_title, s.skills, s.interests, now()
+                        FROM staged s
+                        JOIN users u ON u.email = s.email AND u.id = s.id
+                        ON CONFLICT (user_id) DO NOTHING
+                        """);
+            }
+
+            return new MergeCounts(staged, distinctEmails, usersCreated, profilesWritten);
+        }
+
+        public void commit() throws SQLException {
+            connection.commit();
+            committed = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (!committed) {
+                    connection.rollback();
+                }
+            } finally {
+                connection.close();
+            }
+        }
+
+        // COPY's CSV format reads an unquoted empty field as NULL and a quoted one as an empty string
+        private static StringBuilder appendField(StringBuilder csv, String value) {
+            if (value == null) {
+                return csv;
+            }
+            return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+
+        private static String arrayLiteral(List<String> values) {
+            if (values == null) {
+                return null;
+            }
+            StringBuilder literal = new StringBuilder("{");
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    literal.append(',');
+                }
+                literal.append('"')
+                        .append(values.get(i).replace("\\", "\\\\").replace("\"", "\\\""))
+                        .append('"');
+            }
+            return literal.append('}').toString();
+        }
+    }
+}
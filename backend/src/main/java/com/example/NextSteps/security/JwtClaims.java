@@ -0,0 +1,14 @@
+package com.example.NextSteps.security;
+
+import java.time.Instant;
+
+public record JwtClaims(
+        String userId,
+        String email,
+        Instant expiresAt
+) {
+
+    public boolean isExpired() {
+        return expiresAt != null && !Instant.now().isBefore(expiresAt);
+    }
+}
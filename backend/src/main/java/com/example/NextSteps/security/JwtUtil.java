@@ -8,19 +8,44 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret:defaultSecretKeyThatShouldBeChangedInProduction123456}")
-    private String secretKey;
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final long expirationTime;
+    private final int maxVerifiedTokens;
 
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
-    private long expirationTime;
+    // Tokens that already passed signature verification, so repeat requests from the same client skip the HMAC.
+    // A hit is a lock-free read plus a write to its own entry's last use. Past maxVerifiedTokens one thread at a time
+    // sweeps out the expired entries and the least recently used tenth, so the order is only approximately LRU.
+    private final ConcurrentHashMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    private static final class VerifiedToken {
+        private final JwtClaims claims;
+        private volatile long lastUsedNanos;
+
+        private VerifiedToken(JwtClaims claims) {
+            this.claims = claims;
+            this.lastUsedNanos = System.nanoTime();
+        }
+    }
+
+    public JwtUtil(@Value("${jwt.secret:defaultSecretKeyThatShouldBeChangedInProduction123456}") String secretKey,
+                   @Value("${jwt.expiration:86400000}") long expirationTime, // 24 hours in milliseconds
+                   @Value("${jwt.verified-cache-size:10000}") int maxVerifiedTokens) {
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.expirationTime = expirationTime;
+        this.maxVerifiedTokens = maxVerifiedTokens;
     }
 
     public String generateToken(UUID userId, String email) {
@@ -29,38 +54,86 @@ public class JwtUtil {
                 .claim("email", email)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    public Optional<JwtClaims> verify(String token) {
+        VerifiedToken cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (!cached.claims.isExpired()) {
+                cached.lastUsedNanos = System.nanoTime();
+                return Optional.of(cached.claims);
+            }
+            verifiedTokens.remove(token, cached);
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            JwtClaims verified = new JwtClaims(
+                    claims.getSubject(),
+                    claims.get("email", String.class),
+                    expiration != null ? expiration.toInstant() : null
+            );
+            remember(token, verified);
+            return Optional.of(verified);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
 
+    public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
     public String getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.getSubject();
+        return verify(token)
+                .map(JwtClaims::userId)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
     }
 
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.get("email", String.class);
+        return verify(token)
+                .map(JwtClaims::email)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
     }
-}
 
+    private void remember(String token, JwtClaims claims) {
+        // Without an expiry there is no safe point at which to drop the entry again
+        if (maxVerifiedTokens <= 0 || claims.expiresAt() == null) {
+            return;
+        }
+
+        verifiedTokens.put(token, new VerifiedToken(claims));
+        // Whoever finds it over the limit while a sweep is running carries on, the sweep catches up with it
+        if (verifiedTokens.size() > maxVerifiedTokens && evictionLock.tryLock()) {
+            try {
+                evictColdest();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    // A sweep every tenth of the capacity keeps the cost per inserted token constant. Caller holds the eviction lock.
+    private void evictColdest() {
+        verifiedTokens.values().removeIf(verified -> verified.claims.isExpired());
+        int excess = verifiedTokens.size() - maxVerifiedTokens;
+        if (excess <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long[] idleNanos = verifiedTokens.values().stream()
+                .mapToLong(verified -> now - verified.lastUsedNanos)
+                .sorted()
+                .toArray();
+        if (idleNanos.length == 0) {
+            return;
+        }
+        int evicted = Math.min(idleNanos.length, excess + Math.max(1, maxVerifiedTokens / 10));
+        long minIdleNanos = idleNanos[idleNanos.length - evicted];
+        verifiedTokens.values().removeIf(verified -> now - verified.lastUsedNanos >= minIdleNanos);
+    }
+}
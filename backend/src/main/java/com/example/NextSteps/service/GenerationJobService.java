@@ -0,0 +1,136 @@
+package com.example.NextSteps.service;
+
+import com.example.NextSteps.dto.roadmap.job.GenerationJobResponse;
+import com.example.NextSteps.entities.GenerationJob;
+import com.example.NextSteps.entities.GenerationJobStatus;
+import com.example.NextSteps.entities.Profile;
+import com.example.NextSteps.repository.GenerationJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class GenerationJobService {
+
+    private final GenerationJobRepository generationJobRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxAttempts;
+    private final int staleAfterSeconds;
+
+    public GenerationJobService(GenerationJobRepository generationJobRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${ai.jobs.max-attempts:3}") int maxAttempts,
+                                @Value("${ai.jobs.stale-after-seconds:300}") int staleAfterSeconds) {
+        this.generationJobRepository = generationJobRepository;
+        this.objectMapper = objectMapper;
+        this.maxAttempts = maxAttempts;
+        this.staleAfterSeconds = staleAfterSeconds;
+    }
+
+    public GenerationJobResponse submit(Profile profile) {
+        GenerationJob job = new GenerationJob();
+        job.setId(UUID.randomUUID());
+        job.setUserId(profile.getUserId());
+        job.setStatus(GenerationJobStatus.PENDING);
+
+        try {
+            job.setProfileJson(objectMapper.writeValueAsString(profile));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize profile", e);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+
+        return GenerationJobResponse.from(generationJobRepository.save(job));
+    }
+
+    public Optional<GenerationJobResponse> getJob(UUID jobId) {
+        return generationJobRepository.findById(jobId)
+                .map(GenerationJobResponse::from);
+    }
+
+    @Transactional
+    public Optional<GenerationJob> claimNext(String workerId) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Optional<GenerationJob> claimable = generationJobRepository.findNextClaimable(now.minusSeconds(staleAfterSeconds));
+
+        if (claimable.isEmpty()) {
+            return Optional.empty();
+        }
+
+        GenerationJob job = claimable.get();
+        if (job.getAttempts() >= maxAttempts) {
+            // Only reachable for a stale job, i.e. every attempt so far died with its worker
+            job.setStatus(GenerationJobStatus.FAILED);
+            job.setErrorMessage("Gave up after " + job.getAttempts() + " attempts");
+            job.setLockedBy(null);
+            job.setLockedAt(null);
+            job.setUpdatedAt(now);
+            return Optional.empty();
+        }
+
+        job.setStatus(GenerationJobStatus.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        job.setLockedBy(workerId);
+        job.setLockedAt(now);
+        job.setUpdatedAt(now);
+        return Optional.of(job);
+    }
+
+    public Profile readProfile(GenerationJob job) {
+        try {
+            return objectMapper.readValue(job.getProfileJson(), Profile.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to deserialize profile for job: " + job.getId(), e);
+        }
+    }
+
+    @Transactional
+    public int heartbeat(Collection<UUID> jobIds, String workerId) {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        return generationJobRepository.refreshLocks(jobIds, workerId, OffsetDateTime.now());
+    }
+
+    @Transactional
+    public void complete(UUID jobId, String workerId, UUID roadmapId) {
+        ownedJob(jobId, workerId).ifPresent(job -> {
+            job.setStatus(GenerationJobStatus.COMPLETED);
+            job.setRoadmapId(roadmapId);
+            job.setErrorMessage(null);
+            release(job);
+        });
+    }
+
+    @Transactional
+    public void fail(UUID jobId, String workerId, String errorMessage) {
+        ownedJob(jobId, workerId).ifPresent(job -> {
+            job.setStatus(job.getAttempts() >= maxAttempts ? GenerationJobStatus.FAILED : GenerationJobStatus.PENDING);
+            job.setErrorMessage(errorMessage);
+            release(job);
+        });
+    }
+
+    // A worker that ran past the stale timeout may have lost its job to another instance, its result is then dropped
+    private Optional<GenerationJob> ownedJob(UUID jobId, String workerId) {
+        return generationJobRepository.findById(jobId)
+                .filter(job -> job.getStatus() == GenerationJobStatus.RUNNING)
+                .filter(job -> workerId.equals(job.getLockedBy()));
+    }
+
+    private void release(GenerationJob job) {
+        job.setLockedBy(null);
+        job.setLockedAt(null);
+        job.setUpdatedAt(OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.NextSteps.service;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.entities.GenerationJob;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+//Every backend instance runs one of these, they coordinate only through row locks on generation_jobs
+@Slf4j
+@Component
+public class GenerationJobWorker {
+
+    private final GenerationJobService generationJobService;
+    private final RoadmapService roadmapService;
+    private final ExecutorService workers;
+    private final Semaphore idleWorkers;
+    private final String workerId;
+    // Jobs running here right now, their locks are refreshed by heartbeat()
+    private final Set<UUID> running = ConcurrentHashMap.newKeySet();
+
+    public GenerationJobWorker(GenerationJobService generationJobService,
+                               RoadmapService roadmapService,
+                               @Value("${ai.jobs.workers:2}") int workerCount,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.generationJobService = generationJobService;
+        this.roadmapService = roadmapService;
+        // The semaphore caps running jobs either way, virtual threads just stop each one holding a platform thread
+        this.workers = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(workerCount);
+        this.idleWorkers = new Semaphore(workerCount);
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    }
+
+    @Scheduled(fixedDelayString = "${ai.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        while (idleWorkers.tryAcquire()) {
+            Optional<GenerationJob> job;
+            try {
+                job = generationJobService.claimNext(workerId);
+            } catch (RuntimeException e) {
+                idleWorkers.release();
+                log.warn("Failed to claim generation job", e);
+                return;
+            }
+
+            if (job.isEmpty()) {
+                idleWorkers.release();
+                return;
+            }
+
+            running.add(job.get().getId());
+            workers.execute(() -> {
+                try {
+                    run(job.get());
+                } finally {
+                    running.remove(job.get().getId());
+                    idleWorkers.release();
+                }
+            });
+        }
+    }
+
+    //A generation can run longer than stale-after-seconds, without this another instance would claim it again mid-run
+    @Scheduled(fixedDelayString = "${ai.jobs.heartbeat-interval-ms:60000}")
+    public void heartbeat() {
+        List<UUID> jobIds = List.copyOf(running);
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        try {
+            int refreshed = generationJobService.heartbeat(jobIds, workerId);
+            if (refreshed < jobIds.size()) {
+                log.warn("{} of {} running generation jobs are no longer locked by this worker",
+                        jobIds.size() - refreshed, jobIds.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh the locks of {} generation jobs", jobIds.size(), e);
+        }
+    }
+
+    private void run(GenerationJob job) {
+        try {
+            RoadMapDto roadmap = roadmapService.generateAndSaveRoadmap(generationJobService.readProfile(job));
+            generationJobService.complete(job.getId(), workerId, UUID.fromString(roadmap.getRoadmapId()));
+        } catch (RuntimeException e) {
+            log.warn("Generation job {} failed on attempt {}", job.getId(), job.getAttempts(), e);
+            generationJobService.fail(job.getId(), workerId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Jobs still running are left locked and get picked up again once their lock goes stale
+        workers.shutdownNow();
+    }
+}
@@ -5,22 +5,29 @@ import com.example.NextSteps.dto.LoginResponse;
 import com.example.NextSteps.entities.User;
 import com.example.NextSteps.repository.UserRepository;
 import com.example.NextSteps.security.JwtUtil;
+import com.example.NextSteps.security.PasswordHashingBusyException;
+import com.example.NextSteps.security.PasswordHashingExecutor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+@Slf4j
 @Service
 public class LoginAuthenticationService {
 
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
-    public LoginAuthenticationService(UserRepository userRepository, JwtUtil jwtUtil, PasswordEncoder passwordEncoder) {
+    public LoginAuthenticationService(UserRepository userRepository, JwtUtil jwtUtil, PasswordEncoder passwordEncoder,
+                                      PasswordHashingExecutor passwordHashingExecutor) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
     public LoginResponse login(LoginRequest loginRequest) {
@@ -37,6 +44,8 @@ public class LoginAuthenticationService {
             return new LoginResponse(false, "Invalid password", null, null, null);
         }
 
+        rehashIfNeeded(user, loginRequest.getPassword());
+
         // Generate JWT token
         String token = jwtUtil.generateToken(user.getId(), user.getEmail());
 
@@ -44,12 +53,34 @@ public class LoginAuthenticationService {
     }
 
     private boolean verifyPassword(String rawPassword, String hashedPassword) {
+        if (rawPassword == null || hashedPassword == null) {
+            return false;
+        }
         // Check if the stored password is already hashed (starts with $2a$ for BCrypt)
-        if (hashedPassword.startsWith("$2a$") || hashedPassword.startsWith("$2b$")) {
-            return passwordEncoder.matches(rawPassword, hashedPassword);
+        if (isBcrypt(hashedPassword)) {
+            return passwordHashingExecutor.execute(() -> passwordEncoder.matches(rawPassword, hashedPassword));
         }
-        // Fallback for plain text passwords (for existing data - should be migrated)
+        // Fallback for plain text passwords (for existing data - migrated by rehashIfNeeded on the next login)
         return rawPassword.equals(hashedPassword);
     }
-}
 
+    // The raw password is only ever available here, so this is where plain text and weaker hashes get upgraded
+    private void rehashIfNeeded(User user, String rawPassword) {
+        String storedHash = user.getPasswordHash();
+        if (isBcrypt(storedHash) && !passwordEncoder.upgradeEncoding(storedHash)) {
+            return;
+        }
+
+        try {
+            user.setPasswordHash(passwordHashingExecutor.execute(() -> passwordEncoder.encode(rawPassword)));
+            userRepository.save(user);
+        } catch (PasswordHashingBusyException e) {
+            // The login itself succeeded, the upgrade can wait for the next one
+            log.debug("Skipped password rehash for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    private boolean isBcrypt(String hashedPassword) {
+        return hashedPassword.startsWith("$2a$") || hashedPassword.startsWith("$2b$");
+    }
+}
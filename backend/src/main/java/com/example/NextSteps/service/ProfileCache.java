@@ -0,0 +1,158 @@
+package com.example.NextSteps.service;
+
+import com.example.NextSteps.dto.ProfileResponse;
+import com.example.NextSteps.entities.listener.ProfileChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//Profile page reads keyed by user id: an LRU bounded by max-entries whose entries also expire after the TTL.
+//Writes evict through the ProfileChangedEvent the entity listener publishes. A load that started before an eviction is not cached, so a reader
+//racing a write can never put the old updatedAt back. Hit ratio and the DB time the hits saved are exported as metrics.
+@Component
+public class ProfileCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<UUID, CachedProfile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every eviction, under the lock
+    private long invalidations;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loadTimer;
+
+    private record CachedProfile(ProfileResponse profile, long expiresAtNanos) {
+    }
+
+    public ProfileCache(MeterRegistry meterRegistry,
+                        @Value("${profile.cache.max-entries:10000}") int maxEntries,
+                        @Value("${profile.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+
+        this.hits = meterRegistry.counter("profile.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("profile.cache.requests", "result", "miss");
+        this.loadTimer = meterRegistry.timer("profile.cache.load");
+        Gauge.builder("profile.cache.size", this, ProfileCache::size).register(meterRegistry);
+        Gauge.builder("profile.cache.hit.ratio", this, ProfileCache::hitRatio).register(meterRegistry);
+        // Every hit would otherwise have cost an average load
+        Gauge.builder("profile.cache.db.time.saved", this,
+                        cache -> cache.hits.count() * cache.loadTimer.mean(TimeUnit.SECONDS))
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public Optional<ProfileResponse> get(UUID userId, Supplier<Optional<ProfileResponse>> loader) {
+        long seen;
+        lock.lock();
+        try {
+            CachedProfile cached = entries.get(userId);
+            if (cached != null) {
+                if (System.nanoTime() - cached.expiresAtNanos() < 0) {
+                    hits.increment();
+                    return Optional.of(cached.profile());
+                }
+                entries.remove(userId);
+            }
+            seen = invalidations;
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        Optional<ProfileResponse> loaded = loadTimer.record(loader);
+        // Missing users are not cached, they may register a moment later
+        loaded.ifPresent(profile -> putUnlessInvalidated(userId, profile, seen));
+        return loaded;
+    }
+
+    //Evicts now and, inside a transaction, again once it has finished. A reader between the flush and the commit
+    //still sees the old row, the second eviction drops whatever it cached.
+    public void evict(UUID userId) {
+        evictNow(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(userId);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onProfileChanged(ProfileChangedEvent event) {
+        evict(event.userId());
+    }
+
+    // For writes that bypass JPA and touch many profiles at once
+    public void clear() {
+        lock.lock();
+        try {
+            invalidations++;
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void evictNow(UUID userId) {
+        lock.lock();
+        try {
+            invalidations++;
+            entries.remove(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putUnlessInvalidated(UUID userId, ProfileResponse profile, long seen) {
+        lock.lock();
+        try {
+            if (invalidations != seen) {
+                return;
+            }
+            entries.put(userId, new CachedProfile(profile, System.nanoTime() + ttlNanos));
+            // Access ordered, so the first entry is always the least recently used one
+            Iterator<UUID> iterator = entries.keySet().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.NextSteps.service;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.RoadmapSummary;
+import com.example.NextSteps.dto.roadmap.generation.AiRoadMapProvider;
+import com.example.NextSteps.dto.roadmap.generation.FairGenerationScheduler;
+import com.example.NextSteps.dto.roadmap.generation.GenerationMetrics;
+import com.example.NextSteps.dto.roadmap.generation.GenerationRejectedException;
+import com.example.NextSteps.dto.roadmap.generation.RoadmapSimilarityIndex;
+import com.example.NextSteps.entities.Profile;
+import com.example.NextSteps.entities.Roadmap;
+import com.example.NextSteps.entities.User;
+import com.example.NextSteps.repository.ReactiveProfileRepository;
+import com.example.NextSteps.repository.ReactiveRoadmapRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//The reactive counterpart of RoadmapService: profile lookup, generation and the insert are one Mono, so no thread is
+//held while a request waits on Postgres or Ollama. Generations go through a bounded queue drained by a flatMap with
+//max-concurrency, which is the backpressure: thousands can wait cheaply, only max-concurrency reach Ollama, and a full
+//queue is refused straight away rather than piling up behind the connection pool.
+@Service
+public class ReactiveRoadmapService {
+
+    private static final Duration EMIT_CONTENTION_TIMEOUT = Duration.ofMillis(100);
+
+    private final AiRoadMapProvider aiRoadMapProvider;
+    private final RoadmapService roadmapService;
+    private final ReactiveRoadmapRepository reactiveRoadmapRepository;
+    private final ReactiveProfileRepository reactiveProfileRepository;
+    private final ObjectMapper objectMapper;
+    private final GenerationMetrics generationMetrics;
+    private final RoadmapSimilarityIndex roadmapSimilarityIndex;
+    private final int retryAfterSeconds;
+
+    private final Sinks.Many<Generation> pending;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Disposable worker;
+
+    private record Generation(Supplier<Mono<RoadMapDto>> work, Sinks.One<RoadMapDto> result) {
+    }
+
+    public ReactiveRoadmapService(AiRoadMapProvider aiRoadMapProvider,
+                                  RoadmapService roadmapService,
+                                  ReactiveRoadmapRepository reactiveRoadmapRepository,
+                                  ReactiveProfileRepository reactiveProfileRepository,
+                                  ObjectMapper objectMapper,
+                                  GenerationMetrics generationMetrics,
+                                  RoadmapSimilarityIndex roadmapSimilarityIndex,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ai.reactive.max-concurrency:16}") int maxConcurrency,
+                                  @Value("${ai.reactive.max-pending:5000}") int maxPending,
+                                  @Value("${ai.reactive.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.aiRoadMapProvider = aiRoadMapProvider;
+        this.roadmapService = roadmapService;
+        this.reactiveRoadmapRepository = reactiveRoadmapRepository;
+        this.reactiveProfileRepository = reactiveProfileRepository;
+        this.objectMapper = objectMapper;
+        this.generationMetrics = generationMetrics;
+        this.roadmapSimilarityIndex = roadmapSimilarityIndex;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.pending = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(maxPending));
+        this.worker = pending.asFlux()
+                .flatMap(generation -> {
+                    queued.decrementAndGet();
+                    return generation.work().get()
+                            .doOnSuccess(roadmap -> generation.result().tryEmitValue(roadmap))
+                            .doOnError(e -> generation.result().tryEmitError(e))
+                            .onErrorResume(e -> Mono.empty());
+                }, maxConcurrency)
+                .subscribe();
+
+        Gauge.builder("roadmap.reactive.queued", queued, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // Empty when the user has no profile
+    public Mono<RoadMapDto> generateAndSaveRoadmap(UUID userId) {
+        String flow = FairGenerationScheduler.currentFlow();
+        return reactiveProfileRepository.findByUserId(userId)
+                .flatMap(profile -> generateAndSaveRoadmap(profile, flow));
+    }
+
+    public Mono<RoadMapDto> generateAndSaveRoadmap(Profile profile) {
+        return generateAndSaveRoadmap(profile, FairGenerationScheduler.currentFlow());
+    }
+
+    // The flow is read on the request thread, the generation itself is subscribed from the queue's worker
+    private Mono<RoadMapDto> generateAndSaveRoadmap(Profile profile, String flow) {
+        // Checked before generating, the roadmap for a missing user could never be saved
+        return reactiveProfileRepository.existsUserById(profile.getUserId())
+                .flatMap(exists -> exists
+                        ? enqueue(() -> aiRoadMapProvider.generateRoadmapAsync(profile)
+                                .contextWrite(FairGenerationScheduler.flowContext(flow)))
+                        : Mono.error(new RuntimeException("User not found")))
+                .flatMap(roadmapDto -> saveRoadmap(profile.getUserId(), roadmapDto));
+    }
+
+    public Mono<RoadMapDto> getRoadmapById(UUID roadmapId) {
+        return reactiveRoadmapRepository.findDocumentById(roadmapId)
+                .map(document -> {
+                    try {
+                        return objectMapper.readValue(document, RoadMapDto.class);
+                    } catch (JsonProcessingException e) {
+                        throw new RuntimeException("Failed to deserialize roadmap", e);
+                    }
+                });
+    }
+
+    public Flux<RoadmapSummary> getRoadmapSummaries(UUID userId) {
+        return reactiveRoadmapRepository.findSummariesByUserId(userId);
+    }
+
+    private Mono<RoadMapDto> enqueue(Supplier<Mono<RoadMapDto>> work) {
+        return Mono.defer(() -> {
+            Sinks.One<RoadMapDto> result = Sinks.one();
+            Generation generation = new Generation(work, result);
+
+            queued.incrementAndGet();
+            // Another request emitting at the same moment is waited out for a bounded time. Not emitNext, which
+            // answers FAIL_OVERFLOW by erroring the sink and so would stop the queue for everyone.
+            Sinks.EmitFailureHandler contention = Sinks.EmitFailureHandler.busyLooping(EMIT_CONTENTION_TIMEOUT);
+            Sinks.EmitResult emitted = pending.tryEmitNext(generation);
+            while (emitted == Sinks.EmitResult.FAIL_NON_SERIALIZED
+                    && contention.onEmitFailure(SignalType.ON_NEXT, emitted)) {
+                emitted = pending.tryEmitNext(generation);
+            }
+
+            switch (emitted) {
+                case OK -> {
+                    return result.asMono();
+                }
+                case FAIL_OVERFLOW, FAIL_NON_SERIALIZED -> {
+                    queued.decrementAndGet();
+                    return Mono.error(new GenerationRejectedException(
+                            "Too many roadmap generations queued, please try again shortly", retryAfterSeconds));
+                }
+                default -> {
+                    // Terminated or cancelled, only once the worker has been disposed on shutdown
+                    queued.decrementAndGet();
+                    return Mono.error(new RuntimeException("Roadmap generation queue is closed: " + emitted));
+                }
+            }
+        });
+    }
+
+    private Mono<RoadMapDto> saveRoadmap(UUID userId, RoadMapDto roadmapDto) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            // The insert only needs the user's id
+            User user = new User();
+            user.setId(userId);
+            Roadmap roadmap = roadmapService.toRoadmap(user, roadmapDto);
+            return reactiveRoadmapRepository.insert(roadmap)
+                    .doOnSuccess(done -> {
+                        generationMetrics.recordPhase(GenerationMetrics.PERSISTENCE, started);
+                        roadmapSimilarityIndex.remember(roadmap.getId(), roadmapDto.getProfileEmbedding());
+                    })
+                    .thenReturn(roadmapDto);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.dispose();
+    }
+}
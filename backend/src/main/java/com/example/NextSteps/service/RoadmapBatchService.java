@@ -0,0 +1,292 @@
+package com.example.NextSteps.service;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.batch.RoadmapBatchFailure;
+import com.example.NextSteps.dto.roadmap.batch.RoadmapBatchRequest;
+import com.example.NextSteps.dto.roadmap.batch.RoadmapBatchResponse;
+import com.example.NextSteps.dto.roadmap.generation.AiRoadMapProvider;
+import com.example.NextSteps.dto.roadmap.generation.RoadmapSimilarityIndex;
+import com.example.NextSteps.entities.GenerationJobStatus;
+import com.example.NextSteps.entities.Profile;
+import com.example.NextSteps.entities.Roadmap;
+import com.example.NextSteps.entities.RoadmapBatch;
+import com.example.NextSteps.entities.User;
+import com.example.NextSteps.repository.ProfileRepository;
+import com.example.NextSteps.repository.RoadmapBatchItemRepository;
+import com.example.NextSteps.repository.RoadmapBatchRepository;
+import com.example.NextSteps.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//Generates a whole cohort's roadmaps at once. Every user gets a virtual thread, but they all share one fair
+//semaphore so no more than max-concurrency generations reach Ollama at a time, across every running batch.
+//A single writer per batch collects the results and saves them in JDBC batches, a failed user only fails its own item.
+@Slf4j
+@Service
+public class RoadmapBatchService {
+
+    private final AiRoadMapProvider aiRoadMapProvider;
+    private final RoadmapService roadmapService;
+    private final ProfileRepository profileRepository;
+    private final UserRepository userRepository;
+    private final RoadmapBatchRepository roadmapBatchRepository;
+    private final RoadmapBatchItemRepository roadmapBatchItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RoadmapSimilarityIndex roadmapSimilarityIndex;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore generationPermits;
+    private final int maxBatchSize;
+    private final int writeBatchSize;
+    private final long flushIntervalMs;
+
+    private record Outcome(UUID userId, Roadmap roadmap, float[] profileEmbedding, String errorMessage) {
+    }
+
+    public RoadmapBatchService(AiRoadMapProvider aiRoadMapProvider,
+                               RoadmapService roadmapService,
+                               ProfileRepository profileRepository,
+                               UserRepository userRepository,
+                               RoadmapBatchRepository roadmapBatchRepository,
+                               RoadmapBatchItemRepository roadmapBatchItemRepository,
+                               TransactionTemplate transactionTemplate,
+                               RoadmapSimilarityIndex roadmapSimilarityIndex,
+                               @Value("${ai.batch.max-concurrency:4}") int maxConcurrency,
+                               @Value("${ai.batch.max-size:1000}") int maxBatchSize,
+                               @Value("${ai.batch.write-batch-size:50}") int writeBatchSize,
+                               @Value("${ai.batch.flush-interval-ms:2000}") long flushIntervalMs) {
+        this.aiRoadMapProvider = aiRoadMapProvider;
+        this.roadmapService = roadmapService;
+        this.profileRepository = profileRepository;
+        this.userRepository = userRepository;
+        this.roadmapBatchRepository = roadmapBatchRepository;
+        this.roadmapBatchItemRepository = roadmapBatchItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.roadmapSimilarityIndex = roadmapSimilarityIndex;
+        this.generationPermits = new Semaphore(maxConcurrency, true);
+        this.maxBatchSize = maxBatchSize;
+        this.writeBatchSize = writeBatchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public RoadmapBatchResponse submit(RoadmapBatchRequest request) {
+        Map<UUID, Profile> profiles = new LinkedHashMap<>();
+        List<RoadmapBatchFailure> failures = new ArrayList<>();
+
+        int requested = (request.getProfiles() != null ? request.getProfiles().size() : 0)
+                + (request.getUserIds() != null ? request.getUserIds().size() : 0);
+        if (requested > maxBatchSize) {
+            throw new IllegalArgumentException("A batch can hold at most " + maxBatchSize + " users");
+        }
+
+        if (request.getProfiles() != null) {
+            for (Profile profile : request.getProfiles()) {
+                if (profile.getUserId() == null) {
+                    throw new IllegalArgumentException("Every profile in a batch needs a userId");
+                }
+                profiles.putIfAbsent(profile.getUserId(), profile);
+            }
+        }
+
+        if (request.getUserIds() != null) {
+            Set<UUID> wanted = new HashSet<>(request.getUserIds());
+            wanted.removeAll(profiles.keySet());
+            // One query for every stored profile in the batch
+            for (Profile profile : profileRepository.findAllById(wanted)) {
+                profiles.put(profile.getUserId(), profile);
+                wanted.remove(profile.getUserId());
+            }
+            wanted.forEach(userId -> failures.add(new RoadmapBatchFailure(userId, "Profile not found")));
+        }
+
+        int total = profiles.size() + failures.size();
+        if (total == 0) {
+            throw new IllegalArgumentException("A batch needs at least one user id or profile");
+        }
+
+        // Profiles sent in the request may name users that do not exist, their roadmaps could never be saved
+        Set<UUID> existing = profiles.isEmpty()
+                ? Set.of()
+                : new HashSet<>(userRepository.findExistingIds(profiles.keySet()));
+        profiles.keySet().removeIf(userId -> {
+            if (existing.contains(userId)) {
+                return false;
+            }
+            failures.add(new RoadmapBatchFailure(userId, "User not found"));
+            return true;
+        });
+
+        OffsetDateTime now = OffsetDateTime.now();
+        RoadmapBatch batch = new RoadmapBatch();
+        batch.setId(UUID.randomUUID());
+        batch.setStatus(profiles.isEmpty() ? GenerationJobStatus.COMPLETED : GenerationJobStatus.RUNNING);
+        batch.setTotal(total);
+        batch.setCreatedAt(now);
+        batch.setUpdatedAt(now);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            roadmapBatchRepository.save(batch);
+            roadmapBatchItemRepository.insertPending(batch.getId(), new ArrayList<>(profiles.keySet()), now);
+            roadmapBatchItemRepository.insertFailed(batch.getId(), failures, now);
+        });
+
+        if (!profiles.isEmpty()) {
+            List<Profile> pending = new ArrayList<>(profiles.values());
+            executor.execute(() -> run(batch.getId(), pending));
+        }
+
+        return new RoadmapBatchResponse(batch.getId(), batch.getStatus(), total, profiles.size(), 0, failures.size(),
+                failures, batch.getCreatedAt(), batch.getUpdatedAt());
+    }
+
+    public Optional<RoadmapBatchResponse> getBatch(UUID batchId) {
+        return roadmapBatchRepository.findById(batchId)
+                .map(batch -> {
+                    Map<GenerationJobStatus, Integer> counts = roadmapBatchItemRepository.countByStatus(batchId);
+                    return new RoadmapBatchResponse(
+                            batch.getId(),
+                            batch.getStatus(),
+                            batch.getTotal(),
+                            counts.getOrDefault(GenerationJobStatus.PENDING, 0),
+                            counts.getOrDefault(GenerationJobStatus.COMPLETED, 0),
+                            counts.getOrDefault(GenerationJobStatus.FAILED, 0),
+                            roadmapBatchItemRepository.findFailures(batchId),
+                            batch.getCreatedAt(),
+                            batch.getUpdatedAt()
+                    );
+                });
+    }
+
+    //Runs on its own virtual thread for the life of the batch. Results are written once writeBatchSize of them
+    //have arrived, or when nothing has arrived for flushIntervalMs, so progress keeps moving on a slow batch.
+    private void run(UUID batchId, List<Profile> profiles) {
+        BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        for (Profile profile : profiles) {
+            executor.execute(() -> {
+                // Every profile has to report back or the loop below waits on it forever
+                try {
+                    outcomes.add(generate(profile));
+                } catch (Throwable e) {
+                    log.error("Batch generation failed for user {}", profile.getUserId(), e);
+                    outcomes.add(new Outcome(profile.getUserId(), null, null, "Generation failed unexpectedly"));
+                }
+            });
+        }
+
+        List<Roadmap> completed = new ArrayList<>();
+        Map<UUID, float[]> embeddings = new HashMap<>();
+        List<RoadmapBatchFailure> failed = new ArrayList<>();
+        int remaining = profiles.size();
+        try {
+            while (remaining > 0) {
+                Outcome outcome = outcomes.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (outcome != null) {
+                    remaining--;
+                    if (outcome.roadmap() != null) {
+                        completed.add(outcome.roadmap());
+                        embeddings.put(outcome.roadmap().getId(), outcome.profileEmbedding());
+                    } else {
+                        failed.add(new RoadmapBatchFailure(outcome.userId(), outcome.errorMessage()));
+                    }
+                }
+                if (outcome == null || remaining == 0 || completed.size() + failed.size() >= writeBatchSize) {
+                    flush(batchId, completed, embeddings, failed);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down, whatever has not been written stays PENDING on its item
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        roadmapBatchRepository.findById(batchId).ifPresent(batch -> {
+            batch.setStatus(GenerationJobStatus.COMPLETED);
+            batch.setUpdatedAt(OffsetDateTime.now());
+            roadmapBatchRepository.save(batch);
+        });
+    }
+
+    private Outcome generate(Profile profile) {
+        RoadMapDto roadmapDto;
+        try {
+            generationPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(profile.getUserId(), null, null, "Interrupted before generation started");
+        }
+        try {
+            roadmapDto = aiRoadMapProvider.generateRoadmap(profile);
+        } catch (RuntimeException e) {
+            log.warn("Batch generation failed for user {}", profile.getUserId(), e);
+            return new Outcome(profile.getUserId(), null, null, e.getMessage());
+        } finally {
+            generationPermits.release();
+        }
+
+        // The roadmap row only needs the user's id, a reference saves loading the user
+        User user = new User();
+        user.setId(profile.getUserId());
+        try {
+            return new Outcome(profile.getUserId(), roadmapService.toRoadmap(user, roadmapDto),
+                    roadmapDto.getProfileEmbedding(), null);
+        } catch (RuntimeException e) {
+            return new Outcome(profile.getUserId(), null, null, e.getMessage());
+        }
+    }
+
+    private void flush(UUID batchId, List<Roadmap> completed, Map<UUID, float[]> embeddings,
+                       List<RoadmapBatchFailure> failed) {
+        if (completed.isEmpty() && failed.isEmpty()) {
+            return;
+        }
+
+        try {
+            roadmapBatchItemRepository.saveCompleted(batchId, completed);
+            // Only once the rows are committed, an index entry never points at a roadmap that was rolled back
+            for (Roadmap roadmap : completed) {
+                roadmapSimilarityIndex.remember(roadmap.getId(), embeddings.get(roadmap.getId()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to save {} roadmaps for batch {}", completed.size(), batchId, e);
+            for (Roadmap roadmap : completed) {
+                failed.add(new RoadmapBatchFailure(roadmap.getUser().getId(), "Failed to save roadmap: " + e.getMessage()));
+            }
+        }
+
+        try {
+            roadmapBatchItemRepository.markFailed(batchId, failed);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record {} failures for batch {}", failed.size(), batchId, e);
+        }
+
+        completed.clear();
+        embeddings.clear();
+        failed.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Batches are not resumed after a restart, their unfinished items stay PENDING
+        executor.shutdownNow();
+    }
+}
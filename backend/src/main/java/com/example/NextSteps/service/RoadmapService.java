@@ -1,7 +1,17 @@
 package com.example.NextSteps.service;
 
 import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.RoadmapPage;
+import com.example.NextSteps.dto.roadmap.RoadmapSummary;
+import com.example.NextSteps.dto.roadmap.RoadmapSummaryView;
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
 import com.example.NextSteps.dto.roadmap.generation.AiRoadMapProvider;
+import com.example.NextSteps.dto.roadmap.generation.GenerationMetrics;
+import com.example.NextSteps.dto.roadmap.generation.IncrementalRoadmapRegenerator;
+import com.example.NextSteps.dto.roadmap.generation.RoadmapSimilarityIndex;
+import com.example.NextSteps.dto.roadmap.generation.RoadmapStreamEvent;
 import com.example.NextSteps.entities.Profile;
 import com.example.NextSteps.entities.Roadmap;
 import com.example.NextSteps.entities.User;
@@ -11,9 +21,16 @@ import com.example.NextSteps.repository.UserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,25 +39,109 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RoadmapService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AiRoadMapProvider aiRoadMapProvider;
     private final ProfileRepository profileRepository;
     private final RoadmapRepository roadmapRepository;
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
+    private final GenerationMetrics generationMetrics;
+    private final RoadmapSimilarityIndex roadmapSimilarityIndex;
+    private final IncrementalRoadmapRegenerator incrementalRoadmapRegenerator;
 
     public RoadMapDto generateAndSaveRoadmap(Profile profile) {
         // Generate the roadmap using AI
         RoadMapDto roadmapDto = aiRoadMapProvider.generateRoadmap(profile);
 
-        // Save the roadmap to the database
-        Roadmap roadmap = new Roadmap();
-        roadmap.setId(UUID.randomUUID());
+        saveRoadmap(profile, roadmapDto);
+
+        return roadmapDto;
+    }
+
+    // Tokens and stages are passed straight through, the roadmap is only saved once the stream has completed
+    public Flux<RoadmapStreamEvent> streamAndSaveRoadmap(Profile profile) {
+        return aiRoadMapProvider.streamRoadmap(profile)
+                .concatMap(event -> {
+                    if (event.type() != RoadmapStreamEvent.Type.COMPLETE) {
+                        return Mono.just(event);
+                    }
+                    return Mono.fromCallable(() -> {
+                                saveRoadmap(profile, event.roadmap());
+                                return event;
+                            })
+                            .subscribeOn(Schedulers.boundedElastic());
+                });
+    }
 
+    private void saveRoadmap(Profile profile, RoadMapDto roadmapDto) {
+        long started = System.nanoTime();
         User user = userRepository.findById(profile.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        Roadmap roadmap = roadmapRepository.save(toRoadmap(user, roadmapDto));
+        generationMetrics.recordPhase(GenerationMetrics.PERSISTENCE, started);
+        roadmapSimilarityIndex.remember(roadmap.getId(), roadmapDto.getProfileEmbedding());
+    }
+
+    //Brings a saved roadmap up to date with the profile, rewriting only the stages the change touches and keeping
+    //the user's progress. Empty when there is no such roadmap, IllegalStateException when a course status changed
+    //while it was being regenerated.
+    public Optional<RoadMapDto> regenerateRoadmap(UUID roadmapId, Profile profile) {
+        Optional<Roadmap> stored = roadmapRepository.findById(roadmapId);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        String previous = stored.get().getRawAiOutput();
+        RoadMapDto existing;
+        try {
+            existing = objectMapper.readValue(previous, RoadMapDto.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to deserialize roadmap", e);
+        }
+
+        RoadMapDto regenerated = incrementalRoadmapRegenerator.regenerate(existing, profile).block();
+
+        long started = System.nanoTime();
+        Roadmap counts = new Roadmap();
+        applyProgressCounts(counts, regenerated);
+        String document;
+        try {
+            document = objectMapper.writeValueAsString(regenerated);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize roadmap", e);
+        }
+        int updated = roadmapRepository.replaceDocument(roadmapId, previous, document, regenerated.getTargetRole(),
+                counts.getStageCount(), counts.getCourseCount(), counts.getCompletedCourseCount());
+        if (updated == 0) {
+            throw new IllegalStateException("Roadmap " + roadmapId + " changed while it was being regenerated");
+        }
+        generationMetrics.recordPhase(GenerationMetrics.PERSISTENCE, started);
+
+        // Still indexed under the profile it was first written for, which no longer describes it. The embedding is
+        // only there after a full regeneration, an incremental one re-embeds the profile. An adapted copy is never a
+        // reuse source, so it is only dropped.
+        if (!regenerated.getGenerationDetails().getRegeneratedStageIds().isEmpty()) {
+            if (regenerated.getGenerationDetails().getReusedFromRoadmapId() != null) {
+                roadmapSimilarityIndex.forget(roadmapId);
+            } else {
+                roadmapSimilarityIndex.reindex(roadmapId, regenerated.getProfileEmbedding(), profile);
+            }
+        }
+        return Optional.of(regenerated);
+    }
+
+    // Builds the row for a generated roadmap without saving it, bulk generation writes these itself in JDBC batches.
+    // Each save path indexes the roadmap's embedding once its own insert has gone through.
+    public Roadmap toRoadmap(User user, RoadMapDto roadmapDto) {
+        Roadmap roadmap = new Roadmap();
+        roadmap.setId(UUID.randomUUID());
         roadmap.setUser(user);
         roadmap.setTitle(roadmapDto.getTargetRole());
 
+        // The ids the model writes are placeholders, the stored document should point at the real rows
+        roadmapDto.setRoadmapId(roadmap.getId().toString());
+        roadmapDto.setUserId(user.getId().toString());
+
         try {
             roadmap.setRawAiOutput(objectMapper.writeValueAsString(roadmapDto));
         } catch (JsonProcessingException e) {
@@ -48,15 +149,94 @@ public class RoadmapService {
         }
 
         roadmap.setCreatedAt(OffsetDateTime.now());
-        roadmapRepository.save(roadmap);
+        applyProgressCounts(roadmap, roadmapDto);
+        return roadmap;
+    }
 
-        return roadmapDto;
+    // Denormalised onto the row so list views can show progress without reading the document
+    private void applyProgressCounts(Roadmap roadmap, RoadMapDto roadmapDto) {
+        List<Stage> stages = roadmapDto.getStages() != null ? roadmapDto.getStages() : List.of();
+        int courseCount = 0;
+        int completedCourseCount = 0;
+
+        for (Stage stage : stages) {
+            if (stage.getItems() == null) {
+                continue;
+            }
+            for (Course course : stage.getItems()) {
+                courseCount++;
+                if (course.getStatus() == CourseStatus.COMPLETED) {
+                    completedCourseCount++;
+                }
+            }
+        }
+
+        roadmap.setStageCount(stages.size());
+        roadmap.setCourseCount(courseCount);
+        roadmap.setCompletedCourseCount(completedCourseCount);
     }
 
     public List<Roadmap> getRoadmapsByUserId(UUID userId) {
         return roadmapRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    public RoadmapPage getRoadmapSummaries(UUID userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells us whether there is another page without a count query
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<RoadmapSummaryView> rows;
+        Long totalCount = null;
+        if (cursor == null || cursor.isBlank()) {
+            rows = roadmapRepository.findSummariesByUserId(userId, fetchLimit);
+            totalCount = roadmapRepository.countByUserId(userId);
+        } else {
+            RoadmapCursor after = decodeCursor(cursor);
+            rows = roadmapRepository.findSummariesByUserIdAfter(userId, after.createdAt(), after.id(), fetchLimit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<RoadmapSummaryView> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+
+        return new RoadmapPage(page.stream().map(RoadmapSummary::from).toList(), nextCursor, totalCount);
+    }
+
+    private String encodeCursor(RoadmapSummaryView last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private RoadmapCursor decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return new RoadmapCursor(
+                    OffsetDateTime.parse(position.substring(0, separator)),
+                    UUID.fromString(position.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid roadmap cursor", e);
+        }
+    }
+
+    private record RoadmapCursor(OffsetDateTime createdAt, UUID id) {
+    }
+
+    public List<UUID> findRoadmapIdsWithCourse(UUID userId, String courseTitle) {
+        return roadmapRepository.findIdsByUserIdContainingCourse(userId, courseTitle);
+    }
+
+    // A stage is still in progress while any of its courses is
+    public List<UUID> findRoadmapIdsWithCourseStatus(UUID userId, CourseStatus status) {
+        return roadmapRepository.findIdsByUserIdWithCourseStatus(userId, status.name());
+    }
+
+    // Progress clicks only touch the one course and its stage tracker, the document is never read back into the JVM
+    public boolean updateCourseStatus(UUID roadmapId, String stageId, String itemId, CourseStatus status) {
+        return roadmapRepository.updateCourseStatus(roadmapId, stageId, itemId, status.name()) > 0;
+    }
+
     public Optional<RoadMapDto> getRoadmapById(UUID roadmapId) {
         return roadmapRepository.findById(roadmapId)
                 .map(roadmap -> {
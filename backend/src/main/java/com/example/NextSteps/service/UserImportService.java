@@ -0,0 +1,252 @@
+package com.example.NextSteps.service;
+
+import com.example.NextSteps.dto.userimport.UserImportError;
+import com.example.NextSteps.dto.userimport.UserImportRecord;
+import com.example.NextSteps.dto.userimport.UserImportResult;
+import com.example.NextSteps.repository.UserImportRepository;
+import com.example.NextSteps.repository.UserImportRepository.StagedUser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+//Imports partner files of users and profiles. Records are streamed and staged a chunk at a time, so memory stays
+//flat however large the file is, and BCrypt runs in parallel on its own pool so an import does not queue behind or
+//starve logins. Emails that already exist are looked up per chunk and never hashed, which is most of the cost of
+//re-running an import. The whole file is one transaction: rejected records are reported, a malformed file imports nothing.
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private final UserImportRepository userImportRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ProfileCache profileCache;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final ExecutorService hashingPool;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    private record NumberedRecord(long number, UserImportRecord record) {
+    }
+
+    public UserImportService(UserImportRepository userImportRepository,
+                             PasswordEncoder passwordEncoder,
+                             Validator validator,
+                             ProfileCache profileCache,
+                             ObjectMapper objectMapper,
+                             @Value("${import.users.chunk-size:1000}") int chunkSize,
+                             @Value("${import.users.hashing-threads:0}") int hashingThreads,
+                             @Value("${import.users.max-reported-errors:100}") int maxReportedErrors) {
+        this.userImportRepository = userImportRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.profileCache = profileCache;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+
+        this.ndjsonReader = objectMapper.readerFor(UserImportRecord.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        CsvMapper csvMapper = new CsvMapper();
+        this.csvReader = csvMapper.readerFor(UserImportRecord.class)
+                .with(CsvSchema.emptySchema().withHeader().withArrayElementSeparator(";"))
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public UserImportResult importUsers(InputStream input, Format format, boolean updateExistingProfiles) throws IOException {
+        long started = System.nanoTime();
+        ObjectReader reader = format == Format.CSV ? csvReader : ndjsonReader;
+
+        long records = 0;
+        long rejected = 0;
+        List<UserImportError> errors = new ArrayList<>();
+
+        try (MappingIterator<UserImportRecord> iterator = reader.readValues(input);
+             UserImportRepository.Session session = userImportRepository.open()) {
+            List<NumberedRecord> chunk = new ArrayList<>(chunkSize);
+            while (nextValue(iterator, records + 1)) {
+                records++;
+                UserImportRecord record = normalise(iterator.nextValue());
+
+                Set<ConstraintViolation<UserImportRecord>> violations = validator.validate(record);
+                if (!violations.isEmpty()) {
+                    rejected++;
+                    if (errors.size() < maxReportedErrors) {
+                        errors.add(new UserImportError(records, describe(violations)));
+                    }
+                    continue;
+                }
+
+                chunk.add(new NumberedRecord(records, record));
+                if (chunk.size() >= chunkSize) {
+                    stage(session, chunk);
+                    chunk.clear();
+                }
+            }
+            stage(session, chunk);
+
+            UserImportRepository.MergeCounts counts = session.merge(updateExistingProfiles);
+            session.commit();
+            // The merge bypasses JPA, so the listener never saw which profiles changed
+            profileCache.clear();
+
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("Imported {} records: {} users created, {} profiles written, {} rejected in {} ms",
+                    records, counts.usersCreated(), counts.profilesWritten(), rejected, elapsedMs);
+            return new UserImportResult(
+                    records,
+                    rejected,
+                    counts.staged() - counts.distinctEmails(),
+                    counts.usersCreated(),
+                    counts.distinctEmails() - counts.usersCreated(),
+                    counts.profilesWritten(),
+                    errors,
+                    elapsedMs
+            );
+        } catch (SQLException e) {
+            throw new RuntimeException("User import failed", e);
+        }
+    }
+
+    //A record Jackson cannot parse means the file is broken rather than one row being wrong
+    private static boolean nextValue(MappingIterator<UserImportRecord> iterator, long record) throws IOException {
+        try {
+            return iterator.hasNextValue();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed record " + record + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private void stage(UserImportRepository.Session session, List<NumberedRecord> chunk) throws SQLException, IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> existingEmails = session.findExistingEmails(
+                chunk.stream().map(numbered -> numbered.record().getEmail()).collect(Collectors.toSet()));
+
+        List<Callable<StagedUser>> tasks = new ArrayList<>(chunk.size());
+        for (NumberedRecord numbered : chunk) {
+            tasks.add(() -> toStagedUser(numbered, existingEmails.contains(numbered.record().getEmail())));
+        }
+
+        List<StagedUser> staged = new ArrayList<>(chunk.size());
+        try {
+            for (Future<StagedUser> future : hashingPool.invokeAll(tasks)) {
+                staged.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("User import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to hash imported password", e.getCause());
+        }
+        session.stage(staged);
+    }
+
+    private StagedUser toStagedUser(NumberedRecord numbered, boolean existingEmail) {
+        UserImportRecord record = numbered.record();
+        String passwordHash = null;
+        if (!existingEmail) {
+            passwordHash = isBcryptHash(record.getPassword())
+                    ? record.getPassword()
+                    : passwordEncoder.encode(record.getPassword());
+        }
+        return new StagedUser(
+                numbered.number(),
+                record.getId() != null ? record.getId() : UUID.randomUUID(),
+                record.getEmail(),
+                passwordHash,
+                record.getFirstName(),
+                record.getSurname(),
+                record.getGoalTitle(),
+                record.getSkills(),
+                record.getInterests()
+        );
+    }
+
+    //A partner moving users over from another BCrypt system sends the hashes it has, which are stored as they are so
+    //those users keep their passwords. Only operators can reach the import (SecurityConfig), since a hash set this way
+    //is a password the importer already knows.
+    private static boolean isBcryptHash(String password) {
+        return password.length() == 60
+                && (password.startsWith("$2a$") || password.startsWith("$2b$") || password.startsWith("$2y$"));
+    }
+
+    //Empty CSV cells come through as empty strings, they are stored as null like a missing NDJSON key
+    private static UserImportRecord normalise(UserImportRecord record) {
+        String email = blankToNull(record.getEmail());
+        record.setEmail(email != null ? email.toLowerCase(Locale.ROOT) : null);
+        record.setFirstName(blankToNull(record.getFirstName()));
+        record.setSurname(blankToNull(record.getSurname()));
+        record.setGoalTitle(blankToNull(record.getGoalTitle()));
+        record.setSkills(normalise(record.getSkills()));
+        record.setInterests(normalise(record.getInterests()));
+        return record;
+    }
+
+    private static List<String> normalise(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        return values.stream()
+                .map(UserImportService::blankToNull)
+                .filter(value -> value != null)
+                .toList();
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private static String describe(Set<ConstraintViolation<UserImportRecord>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+}
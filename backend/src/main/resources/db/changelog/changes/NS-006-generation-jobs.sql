@@ -0,0 +1,27 @@
+-- liquibase formatted sql
+
+-- changeset ruairi:NS-006-generation-jobs
+CREATE TABLE generation_jobs (
+                                 id UUID PRIMARY KEY,
+                                 user_id UUID NOT NULL,
+                                 status VARCHAR(20) NOT NULL,
+                                 profile_json TEXT NOT NULL,
+                                 roadmap_id UUID,
+                                 error_message TEXT,
+                                 attempts INT NOT NULL DEFAULT 0,
+                                 locked_by VARCHAR(255),
+                                 locked_at TIMESTAMPTZ,
+                                 created_at TIMESTAMPTZ NOT NULL,
+                                 updated_at TIMESTAMPTZ NOT NULL,
+                                 CONSTRAINT fk_generation_jobs_user
+                                     FOREIGN KEY (user_id)
+                                         REFERENCES users(id)
+                                         ON DELETE CASCADE,
+                                 CONSTRAINT fk_generation_jobs_roadmap
+                                     FOREIGN KEY (roadmap_id)
+                                         REFERENCES roadmaps(id)
+                                         ON DELETE SET NULL
+);
+
+-- Workers claim the oldest pending job first
+CREATE INDEX idx_generation_jobs_status_created_at ON generation_jobs(status, created_at);
@@ -0,0 +1,11 @@
+-- liquibase formatted sql
+
+-- changeset ruairi:NS-007-roadmap-cache
+CREATE TABLE roadmap_cache (
+                               cache_key VARCHAR(64) PRIMARY KEY,
+                               model VARCHAR(255) NOT NULL,
+                               roadmap_json TEXT NOT NULL,
+                               created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX idx_roadmap_cache_created_at ON roadmap_cache(created_at);
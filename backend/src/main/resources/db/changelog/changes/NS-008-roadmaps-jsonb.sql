@@ -0,0 +1,10 @@
+-- liquibase formatted sql
+
+-- changeset ruairi:NS-008-roadmaps-jsonb
+-- Existing rows were written by Jackson, so every value casts cleanly
+ALTER TABLE roadmaps ALTER COLUMN raw_ai_output TYPE jsonb USING raw_ai_output::jsonb;
+
+-- jsonb_path_ops only supports @>, which is all the roadmap search queries use, and is much smaller than the default opclass
+CREATE INDEX idx_roadmaps_raw_ai_output ON roadmaps USING GIN (raw_ai_output jsonb_path_ops);
+
+-- rollback DROP INDEX idx_roadmaps_raw_ai_output; ALTER TABLE roadmaps ALTER COLUMN raw_ai_output TYPE text USING raw_ai_output::text;
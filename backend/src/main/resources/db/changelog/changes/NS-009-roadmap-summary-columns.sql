@@ -0,0 +1,25 @@
+-- liquibase formatted sql
+
+-- changeset ruairi:NS-009-roadmap-summary-columns
+-- Counts kept next to the document so list views never have to read raw_ai_output
+ALTER TABLE roadmaps ADD COLUMN stage_count INT NOT NULL DEFAULT 0;
+ALTER TABLE roadmaps ADD COLUMN course_count INT NOT NULL DEFAULT 0;
+ALTER TABLE roadmaps ADD COLUMN completed_course_count INT NOT NULL DEFAULT 0;
+
+UPDATE roadmaps r SET
+    stage_count = COALESCE(jsonb_array_length(r.raw_ai_output -> 'stages'), 0),
+    course_count = COALESCE((
+        SELECT sum(jsonb_array_length(s.stage -> 'items'))
+        FROM jsonb_array_elements(r.raw_ai_output -> 'stages') AS s(stage)
+    ), 0),
+    completed_course_count = (
+        SELECT count(*)
+        FROM jsonb_array_elements(r.raw_ai_output -> 'stages') AS s(stage),
+             jsonb_array_elements(s.stage -> 'items') AS i(item)
+        WHERE i.item ->> 'status' = 'COMPLETED'
+    )
+WHERE r.raw_ai_output IS NOT NULL;
+
+-- Keyset pagination walks (created_at, id) newest first within one user, the leading user_id column also replaces the old index
+CREATE INDEX idx_roadmaps_user_id_created_at_id ON roadmaps(user_id, created_at DESC, id DESC);
+DROP INDEX idx_roadmaps_user_id;
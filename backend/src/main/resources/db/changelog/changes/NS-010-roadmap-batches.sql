@@ -0,0 +1,29 @@
+-- liquibase formatted sql
+
+-- changeset ruairi:NS-010-roadmap-batches
+CREATE TABLE roadmap_batches (
+                                 id UUID PRIMARY KEY,
+                                 status VARCHAR(20) NOT NULL,
+                                 total INT NOT NULL,
+                                 created_at TIMESTAMPTZ NOT NULL,
+                                 updated_at TIMESTAMPTZ NOT NULL
+);
+
+-- One row per user in the batch. No foreign key on user_id, unknown users are recorded here as failures
+CREATE TABLE roadmap_batch_items (
+                                     batch_id UUID NOT NULL,
+                                     user_id UUID NOT NULL,
+                                     status VARCHAR(20) NOT NULL,
+                                     roadmap_id UUID,
+                                     error_message TEXT,
+                                     updated_at TIMESTAMPTZ NOT NULL,
+                                     PRIMARY KEY (batch_id, user_id),
+                                     CONSTRAINT fk_roadmap_batch_items_batch
+                                         FOREIGN KEY (batch_id)
+                                             REFERENCES roadmap_batches(id)
+                                             ON DELETE CASCADE,
+                                     CONSTRAINT fk_roadmap_batch_items_roadmap
+                                         FOREIGN KEY (roadmap_id)
+                                             REFERENCES roadmaps(id)
+                                             ON DELETE SET NULL
+);
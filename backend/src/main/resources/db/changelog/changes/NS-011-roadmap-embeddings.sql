@@ -0,0 +1,13 @@
+-- liquibase formatted sql
+
+-- changeset ruairi:NS-011-roadmap-embeddings
+-- The embedding of the profile each generated roadmap was written for. No foreign key, the row is written as the
+-- roadmap gets its id, which can be before the roadmap itself commits; orphans are skipped on load and swept.
+CREATE TABLE roadmap_embeddings (
+                                    roadmap_id UUID PRIMARY KEY,
+                                    model VARCHAR(100) NOT NULL,
+                                    embedding REAL[] NOT NULL,
+                                    created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX idx_roadmap_embeddings_model_created_at ON roadmap_embeddings(model, created_at DESC);
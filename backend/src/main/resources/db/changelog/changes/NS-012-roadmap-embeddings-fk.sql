@@ -0,0 +1,10 @@
+-- liquibase formatted sql
+
+-- changeset ruairi:NS-012-roadmap-embeddings-fk
+-- Embeddings are now written only after their roadmap has committed, so they can reference it and go with it
+DELETE FROM roadmap_embeddings e
+WHERE NOT EXISTS (SELECT 1 FROM roadmaps r WHERE r.id = e.roadmap_id);
+
+ALTER TABLE roadmap_embeddings
+    ADD CONSTRAINT fk_roadmap_embeddings_roadmap
+        FOREIGN KEY (roadmap_id) REFERENCES roadmaps(id) ON DELETE CASCADE;
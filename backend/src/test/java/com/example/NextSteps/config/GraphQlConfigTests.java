@@ -0,0 +1,102 @@
+package com.example.NextSteps.config;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.introspection.IntrospectionQuery;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GraphQlConfigTests {
+
+    private static final String DASHBOARD = """
+            query Dashboard($ids: [ID!]!) {
+              users(ids: $ids) {
+                email
+                roadmaps {
+                  title
+                  stages {
+                    title
+                    items { itemId title status }
+                  }
+                }
+              }
+            }
+            """;
+
+    private final GraphQlConfig config = new GraphQlConfig();
+
+    @Test
+    public void dashboardForTwentyUsersIsAllowed() throws IOException {
+        assertThat(limitErrors(execute(graphQl(8), DASHBOARD, 20))).isEmpty();
+    }
+
+    @Test
+    public void tooManyUsersIsRejected() throws IOException {
+        assertThat(limitErrors(execute(graphQl(8), DASHBOARD, 50))).singleElement()
+                .satisfies(error -> assertThat(error.getMessage()).containsIgnoringCase("complexity"));
+    }
+
+    @Test
+    public void deepQueriesAreRejected() throws IOException {
+        assertThat(limitErrors(execute(graphQl(3), DASHBOARD, 1))).singleElement()
+                .satisfies(error -> assertThat(error.getMessage()).containsIgnoringCase("depth"));
+    }
+
+    @Test
+    public void fewerRoadmapsPerUserAllowMoreUsers() throws IOException {
+        String query = DASHBOARD.replace("roadmaps {", "roadmaps(first: 2) {");
+
+        assertThat(limitErrors(execute(graphQl(8), query, 50))).isEmpty();
+    }
+
+    @Test
+    public void introspectionIsNotLimited() throws IOException {
+        ExecutionResult result = graphQl(3).execute(IntrospectionQuery.INTROSPECTION_QUERY);
+
+        assertThat(limitErrors(result)).isEmpty();
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    // No data fetchers are wired, only errors from the limits matter here
+    private static List<GraphQLError> limitErrors(ExecutionResult result) {
+        return result.getErrors().stream()
+                .filter(error -> error.getMessage().startsWith("maximum query"))
+                .toList();
+    }
+
+    private static ExecutionResult execute(GraphQL graphQl, String query, int users) {
+        List<String> ids = IntStream.range(0, users).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        return graphQl.execute(ExecutionInput.newExecutionInput(query).variables(Map.of("ids", ids)));
+    }
+
+    private GraphQL graphQl(int maxDepth) throws IOException {
+        String sdl;
+        try (InputStream schema = new ClassPathResource("graphql/schema.graphqls").getInputStream()) {
+            sdl = new String(schema.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl),
+                RuntimeWiring.newRuntimeWiring().build());
+        return GraphQL.newGraphQL(schema)
+                .instrumentation(new ChainedInstrumentation(List.of(
+                        config.maxQueryDepthInstrumentation(maxDepth),
+                        config.maxQueryComplexityInstrumentation(20000, 10))))
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FairGenerationSchedulerTests {
+
+    @Test
+    public void lightUserIsServedBetweenAHeavyUsersGenerations() {
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(new SimpleMeterRegistry(), 1, 100, 1.0, 1.0, 5);
+        List<String> served = new CopyOnWriteArrayList<>();
+
+        FairGenerationScheduler.Permit running = scheduler.acquire("heavy").block();
+        for (int i = 0; i < 3; i++) {
+            scheduler.acquire("heavy").subscribe(permit -> {
+                served.add("heavy");
+                permit.release();
+            });
+        }
+        scheduler.acquire("light").subscribe(permit -> {
+            served.add("light");
+            permit.release();
+        });
+
+        running.release();
+
+        assertThat(served).containsExactly("heavy", "light", "heavy", "heavy");
+        assertThat(scheduler.queued()).isZero();
+        assertThat(scheduler.activeFlows()).isZero();
+    }
+
+    @Test
+    public void cancelledWaiterDoesNotHoldASlot() {
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(new SimpleMeterRegistry(), 1, 100, 1.0, 1.0, 5);
+
+        FairGenerationScheduler.Permit running = scheduler.acquire("a").block();
+        Disposable abandoned = scheduler.acquire("b").subscribe();
+        abandoned.dispose();
+        running.release();
+
+        assertThat(scheduler.acquire("c").block()).isNotNull();
+        assertThat(scheduler.queued()).isZero();
+    }
+
+    @Test
+    public void fullQueueIsRejected() {
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(new SimpleMeterRegistry(), 1, 1, 1.0, 1.0, 5);
+
+        scheduler.acquire("a").block();
+        scheduler.acquire("a").subscribe();
+
+        assertThatThrownBy(() -> scheduler.acquire("b").block())
+                .isInstanceOf(GenerationRejectedException.class)
+                .isNotInstanceOf(GenerationRateLimitedException.class);
+    }
+
+    @Test
+    public void rateLimiterRejectsOnceTheBucketIsEmpty() {
+        GenerationRateLimiter limiter = new GenerationRateLimiter(new SimpleMeterRegistry(), true, 2, 6);
+
+        limiter.acquire("user");
+        limiter.acquire("user");
+        limiter.acquire("other");
+
+        assertThatThrownBy(() -> limiter.acquire("user"))
+                .isInstanceOf(GenerationRateLimitedException.class)
+                .satisfies(e -> assertThat(((GenerationRateLimitedException) e).getRetryAfterSeconds()).isBetween(1, 10));
+    }
+}
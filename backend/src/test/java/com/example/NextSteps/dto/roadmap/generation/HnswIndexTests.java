@@ -0,0 +1,164 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class HnswIndexTests {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    public void findsTheExactNearestNeighbourForAlmostEveryQuery() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 100, 42, Runnable::run);
+        List<UUID> ids = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            UUID id = UUID.randomUUID();
+            float[] vector = randomVector(random);
+            ids.add(id);
+            vectors.add(vector);
+            index.add(id, vector);
+        }
+
+        int found = 0;
+        for (int query = 0; query < 200; query++) {
+            float[] vector = randomVector(random);
+            UUID expected = ids.get(bruteForceNearest(vectors, vector));
+            List<HnswIndex.Match> matches = index.search(vector, 1, 64);
+            if (!matches.isEmpty() && matches.get(0).id().equals(expected)) {
+                found++;
+            }
+        }
+
+        assertThat(found).isGreaterThanOrEqualTo(190);
+    }
+
+    @Test
+    public void identicalVectorScoresOneAndRemovedVectorsAreSkipped() {
+        HnswIndex index = new HnswIndex(3, 4, 20, 42, Runnable::run);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        index.add(first, new float[]{1, 0, 0});
+        index.add(second, new float[]{0.9f, 0.1f, 0});
+
+        assertThat(index.search(new float[]{2, 0, 0}, 1, 10))
+                .singleElement()
+                .satisfies(match -> {
+                    assertThat(match.id()).isEqualTo(first);
+                    assertThat(match.similarity()).isCloseTo(1.0, within(1e-6));
+                });
+
+        index.remove(first);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search(new float[]{1, 0, 0}, 2, 10))
+                .extracting(HnswIndex.Match::id)
+                .containsExactly(second);
+    }
+
+    @Test
+    public void removedAndReplacedNodesAreReclaimed() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 100, 42, Runnable::run);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            index.add(id, randomVector(random));
+        }
+
+        for (int round = 0; round < 5; round++) {
+            for (UUID id : ids) {
+                index.add(id, randomVector(random));
+            }
+        }
+        ids.subList(0, 400).forEach(index::remove);
+
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.nodeCount()).isLessThanOrEqualTo(125);
+        float[] query = randomVector(random);
+        assertThat(index.search(query, 10, 64))
+                .extracting(HnswIndex.Match::id)
+                .hasSize(10)
+                .allMatch(id -> ids.subList(400, 500).contains(id));
+    }
+
+    @Test
+    public void changesMadeWhileACompactionBuildsAreKept() {
+        Random random = new Random(7);
+        List<Runnable> compactions = new ArrayList<>();
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 100, 42, compactions::add);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            index.add(id, randomVector(random));
+        }
+        ids.subList(0, 30).forEach(index::remove);
+        assertThat(compactions).hasSize(1);
+
+        // Searches and changes carry on against the old graph until the new one is swapped in
+        UUID added = UUID.randomUUID();
+        float[] addedVector = randomVector(random);
+        index.add(added, addedVector);
+        index.remove(ids.get(50));
+        index.remove(ids.get(51));
+        assertThat(compactions).hasSize(1);
+        assertThat(index.search(addedVector, 1, 64))
+                .extracting(HnswIndex.Match::id)
+                .containsExactly(added);
+
+        compactions.get(0).run();
+
+        assertThat(index.size()).isEqualTo(69);
+        assertThat(index.nodeCount()).isEqualTo(80);
+        assertThat(index.search(addedVector, 1, 64))
+                .extracting(HnswIndex.Match::id)
+                .containsExactly(added);
+        assertThat(index.search(randomVector(random), 69, 200))
+                .extracting(HnswIndex.Match::id)
+                .doesNotContainAnyElementsOf(ids.subList(0, 30))
+                .doesNotContain(ids.get(50), ids.get(51));
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static int bruteForceNearest(List<float[]> vectors, float[] query) {
+        int best = -1;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vectors.size(); i++) {
+            double similarity = cosine(vectors.get(i), query);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class OllamaCircuitBreakerTests {
+
+    private final OllamaCircuitBreaker breaker =
+            new OllamaCircuitBreaker(new SimpleMeterRegistry(), 4, 4, 50, 60000, 100, 200, 1);
+
+    @Test
+    public void opensOnFailuresAndRefusesWithoutCallingUpstream() {
+        fail();
+        succeed();
+        fail();
+        succeed();
+
+        assertThat(breaker.getState()).isEqualTo(OllamaCircuitBreaker.State.OPEN);
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> breaker.protect(() -> Mono.fromCallable(calls::incrementAndGet)).block())
+                .isInstanceOf(GenerationRejectedException.class)
+                .satisfies(e -> assertThat(((GenerationRejectedException) e).getRetryAfterSeconds()).isPositive());
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    public void successfulProbeClosesAndFailedProbeReopens() {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertThat(breaker.getState()).isEqualTo(OllamaCircuitBreaker.State.OPEN);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> breaker.secondsUntilProbe() == 0);
+        fail();
+        assertThat(breaker.getState()).isEqualTo(OllamaCircuitBreaker.State.OPEN);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> breaker.secondsUntilProbe() == 0);
+        succeed();
+        assertThat(breaker.getState()).isEqualTo(OllamaCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void staysClosedBelowTheMinimumNumberOfCalls() {
+        fail();
+        fail();
+        fail();
+
+        assertThat(breaker.getState()).isEqualTo(OllamaCircuitBreaker.State.CLOSED);
+    }
+
+    private void fail() {
+        breaker.protect(() -> Mono.error(new RuntimeException("Failed to connect to Ollama")))
+                .onErrorResume(e -> Mono.empty())
+                .block();
+    }
+
+    private void succeed() {
+        breaker.protect(() -> Mono.just("ok")).block();
+    }
+}
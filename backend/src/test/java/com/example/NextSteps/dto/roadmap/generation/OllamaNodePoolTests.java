@@ -0,0 +1,116 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class OllamaNodePoolTests {
+
+    private final List<DisposableServer> servers = new ArrayList<>();
+    private OllamaNodePool pool;
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+        servers.forEach(DisposableServer::disposeNow);
+    }
+
+    @Test
+    public void failingNodeIsEjectedAndTrafficMovesToHealthyNode() {
+        AtomicInteger brokenHits = new AtomicInteger();
+        AtomicInteger healthyHits = new AtomicInteger();
+        DisposableServer broken = stubNode(brokenHits, new AtomicBoolean(false));
+        DisposableServer healthy = stubNode(healthyHits, new AtomicBoolean(true));
+        pool = newPool(List.of(baseUrl(broken), baseUrl(healthy)), 1);
+
+        for (int i = 0; i < 10; i++) {
+            generate().onErrorResume(e -> Mono.empty()).block(Duration.ofSeconds(5));
+        }
+
+        assertThat(brokenHits.get()).isLessThanOrEqualTo(1);
+        assertThat(healthyHits.get()).isGreaterThanOrEqualTo(9);
+        assertThat(pool.getNodes().get(0).isHealthy()).isEqualTo(brokenHits.get() == 0);
+    }
+
+    @Test
+    public void ejectedNodeIsReadmittedOnceItsHealthProbePasses() {
+        AtomicBoolean up = new AtomicBoolean(false);
+        DisposableServer flaky = stubNode(new AtomicInteger(), up);
+        pool = newPool(List.of(baseUrl(flaky)), 1);
+
+        generate().onErrorResume(e -> Mono.empty()).block(Duration.ofSeconds(5));
+        assertThat(pool.getNodes().get(0).isHealthy()).isFalse();
+
+        up.set(true);
+        pool.probe();
+
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertThat(pool.getNodes().get(0).isHealthy()).isTrue());
+    }
+
+    @Test
+    public void requestsGoToTheNodeWithFewestOutstanding() {
+        DisposableServer first = stubNode(new AtomicInteger(), new AtomicBoolean(true));
+        DisposableServer second = stubNode(new AtomicInteger(), new AtomicBoolean(true));
+        pool = newPool(List.of(baseUrl(first), baseUrl(second)), 3);
+
+        OllamaNode busy = pool.getNodes().get(0);
+        busy.acquire();
+        try {
+            assertThat(pool.select(null)).isSameAs(pool.getNodes().get(1));
+        } finally {
+            busy.release();
+        }
+    }
+
+    private Mono<String> generate() {
+        return pool.execute(client -> client.post()
+                .uri("/api/generate")
+                .retrieve()
+                .bodyToMono(String.class));
+    }
+
+    private DisposableServer stubNode(AtomicInteger hits, AtomicBoolean up) {
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .post("/api/generate", (request, response) -> {
+                            hits.incrementAndGet();
+                            if (!up.get()) {
+                                return response.status(500).send();
+                            }
+                            return response.sendString(Mono.just("{\"response\":\"ok\",\"done\":true}"));
+                        })
+                        .get("/api/tags", (request, response) -> up.get()
+                                ? response.sendString(Mono.just("{\"models\":[]}"))
+                                : response.status(503).send()))
+                .bindNow();
+        servers.add(server);
+        return server;
+    }
+
+    private OllamaNodePool newPool(List<String> baseUrls, int failureThreshold) {
+        OllamaNodePool.Settings settings = new OllamaNodePool.Settings(
+                4, Duration.ofSeconds(30), failureThreshold, Duration.ofSeconds(2), false, 95);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new OllamaNodePool(baseUrls, settings, new OllamaBulkhead(meterRegistry, 16, 5), meterRegistry);
+    }
+
+    private static String baseUrl(DisposableServer server) {
+        return "http://localhost:" + server.port();
+    }
+}
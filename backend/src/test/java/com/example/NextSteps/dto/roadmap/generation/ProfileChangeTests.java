@@ -0,0 +1,96 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.course.Course;
+import com.example.NextSteps.dto.roadmap.course.CourseStatus;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.example.NextSteps.entities.Profile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProfileChangeTests {
+
+    private static final ProfileSnapshot PREVIOUS = new ProfileSnapshot("DevOps Engineer",
+            List.of("Linux", "Git"), List.of("Cloud"));
+
+    private final List<Stage> stages = List.of(
+            stage("stage-1", "Shell basics", course("Bash scripting", CourseStatus.NOT_STARTED)),
+            stage("stage-2", "Containers", course("Docker", CourseStatus.COMPLETED), course("Podman", CourseStatus.NOT_STARTED)),
+            stage("stage-3", "JavaScript tooling", course("Node", CourseStatus.NOT_STARTED)),
+            stage("stage-4", "Kubernetes", course("Kubernetes", CourseStatus.NOT_STARTED)));
+
+    @Test
+    public void orderCaseAndSpacingAreNotAChange() {
+        ProfileChange change = ProfileChange.between(PREVIOUS, profile(" devops  engineer", List.of("git", "LINUX"), List.of("cloud")));
+
+        assertThat(change.isEmpty()).isTrue();
+        assertThat(change.affectedStages(stages)).isEmpty();
+    }
+
+    @Test
+    public void newSkillOnlyTouchesTheStagesThatTeachIt() {
+        ProfileChange change = ProfileChange.between(PREVIOUS, profile("DevOps Engineer", List.of("Linux", "Git", "Bash"), List.of("Cloud")));
+
+        assertThat(change.goalChanged()).isFalse();
+        assertThat(change.affectedStages(stages)).extracting(Stage::getStageId).containsExactly("stage-1");
+        assertThat(change.describe()).containsExactly("The user now already knows: Bash");
+    }
+
+    @Test
+    public void matchesWholeWordsOnly() {
+        ProfileChange change = ProfileChange.between(PREVIOUS, profile("DevOps Engineer", List.of("Linux", "Git", "Java"), List.of("Cloud")));
+
+        assertThat(change.affectedStages(stages)).isEmpty();
+    }
+
+    @Test
+    public void unmentionedChangesGoToTheFirstOrLastUnfinishedStage() {
+        ProfileChange removedSkill = ProfileChange.between(PREVIOUS, profile("DevOps Engineer", List.of("Git"), List.of("Cloud")));
+        ProfileChange addedInterest = ProfileChange.between(PREVIOUS, profile("DevOps Engineer", List.of("Linux", "Git"), List.of("Cloud", "Security")));
+
+        assertThat(removedSkill.affectedStages(stages)).extracting(Stage::getStageId).containsExactly("stage-1");
+        assertThat(addedInterest.affectedStages(stages)).extracting(Stage::getStageId).containsExactly("stage-4");
+    }
+
+    @Test
+    public void stagesWithNothingLeftToReplaceAreKept() {
+        Stage finished = stage("stage-1", "Bash", course("Bash", CourseStatus.COMPLETED));
+        ProfileChange change = ProfileChange.between(PREVIOUS, profile("DevOps Engineer", List.of("Linux", "Git", "Bash"), List.of("Cloud")));
+
+        assertThat(change.affectedStages(List.of(finished))).isEmpty();
+    }
+
+    @Test
+    public void newGoalIsReported() {
+        ProfileChange change = ProfileChange.between(PREVIOUS, profile("Data Engineer", List.of("Linux", "Git"), List.of("Cloud")));
+
+        assertThat(change.goalChanged()).isTrue();
+        assertThat(change.isEmpty()).isFalse();
+    }
+
+    private static Profile profile(String goal, List<String> skills, List<String> interests) {
+        Profile profile = new Profile();
+        profile.setGoalTitle(goal);
+        profile.setSkills(new ArrayList<>(skills));
+        profile.setInterests(new ArrayList<>(interests));
+        return profile;
+    }
+
+    private static Stage stage(String stageId, String title, Course... courses) {
+        Stage stage = new Stage();
+        stage.setStageId(stageId);
+        stage.setTitle(title);
+        stage.setItems(List.of(courses));
+        return stage;
+    }
+
+    private static Course course(String title, CourseStatus status) {
+        Course course = new Course();
+        course.setTitle(title);
+        course.setStatus(status);
+        return course;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.example.NextSteps.dto.roadmap.RoadMapDto;
+import com.example.NextSteps.dto.roadmap.stage.Stage;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RoadmapJsonReaderTests {
+
+    private static final String ROADMAP = """
+            {"roadmapId":"r-1","userId":"u-1","targetRole":"DevOps Engineer","summary":"Braces { in } text and \\"quotes\\"",
+            "stages":[
+              {"stageId":"stage-1","order":1,"title":"Linux","description":"Shell {basics}",
+               "progress":{"totalSteps":1,"currentStep":1,"percent":0},
+               "items":[{"itemId":"course-1","order":1,"title":"Bash","url":"https://example.com/{id}","status":"NOT_STARTED"}]},
+              {"stageId":"stage-2","order":2,"title":"Containers","description":"}",
+               "progress":{"totalSteps":1,"currentStep":1,"percent":0},
+               "items":[{"itemId":"course-2","order":1,"title":"Docker","url":"https://example.com","status":"NOT_STARTED"}]}
+            ]}""";
+
+    private static final String RESPONSE = "Here is {your} roadmap:\n```json\n" + ROADMAP + "\n```\n{\"note\":\"ignored\"}";
+
+    private final RoadmapJsonReader reader = new RoadmapJsonReader(JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build());
+
+    @Test
+    public void readsFirstObjectPastProseAndBracesInsideStrings() {
+        RoadMapDto roadmap = reader.readFirstObject(RESPONSE, RoadMapDto.class);
+
+        assertThat(roadmap.getTargetRole()).isEqualTo("DevOps Engineer");
+        assertThat(roadmap.getSummary()).isEqualTo("Braces { in } text and \"quotes\"");
+        assertThat(roadmap.getStages()).extracting(Stage::getDescription).containsExactly("Shell {basics}", "}");
+    }
+
+    @Test
+    public void incrementalReaderEmitsStagesAsTheyCloseAndTheRoadmapAtTheEnd() {
+        RoadmapJsonReader.Incremental incremental = reader.incremental();
+        List<Stage> stages = new ArrayList<>();
+
+        for (int i = 0; i < RESPONSE.length(); i += 3) {
+            stages.addAll(incremental.accept(RESPONSE.substring(i, Math.min(RESPONSE.length(), i + 3))));
+        }
+
+        assertThat(stages).extracting(Stage::getStageId).containsExactly("stage-1", "stage-2");
+        assertThat(incremental.roadmap()).hasValueSatisfying(roadmap ->
+                assertThat(roadmap.getStages()).hasSize(2));
+        assertThat(incremental.failure()).isEmpty();
+    }
+
+    @Test
+    public void incrementalReaderSkipsEmptyObjectsInTheProse() {
+        RoadmapJsonReader.Incremental incremental = reader.incremental();
+        String response = "An empty {} and { } come first.\n" + ROADMAP;
+        List<Stage> stages = new ArrayList<>();
+
+        for (int i = 0; i < response.length(); i += 3) {
+            stages.addAll(incremental.accept(response.substring(i, Math.min(response.length(), i + 3))));
+        }
+
+        assertThat(stages).extracting(Stage::getStageId).containsExactly("stage-1", "stage-2");
+        assertThat(incremental.roadmap()).isPresent();
+        assertThat(incremental.failure()).isEmpty();
+    }
+
+    @Test
+    public void responseWithoutAnObjectIsRejected() {
+        assertThatThrownBy(() -> reader.readFirstObject("I cannot help with that {sorry}", RoadMapDto.class))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("does not contain a JSON object");
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.NextSteps.dto.roadmap.generation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RoadmapJsonSchemaTests {
+
+    private final RoadmapJsonSchema schema = new RoadmapJsonSchema(JsonMapper.builder().findAndAddModules().build(), true);
+
+    @Test
+    public void ignoredAndServerFieldsAreLeftOut() {
+        JsonNode properties = schema.format().get("properties");
+
+        assertThat(properties.has("stages")).isTrue();
+        assertThat(properties.has("profileEmbedding")).isFalse();
+        assertThat(properties.has("generationDetails")).isFalse();
+        assertThat(schema.format().get("required").toString()).doesNotContain("profileEmbedding");
+    }
+}
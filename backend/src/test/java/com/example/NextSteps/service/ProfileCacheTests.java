@@ -0,0 +1,81 @@
+package com.example.NextSteps.service;
+
+import com.example.NextSteps.dto.ProfileResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProfileCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    public void secondReadIsServedFromTheCache() {
+        ProfileCache cache = new ProfileCache(meterRegistry, 10, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(userId, () -> load(loads, "Learn DevOps"));
+        Optional<ProfileResponse> second = cache.get(userId, () -> load(loads, "Learn DevOps"));
+
+        assertThat(second).map(ProfileResponse::getGoalTitle).contains("Learn DevOps");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("profile.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void evictionForcesTheNextReadToLoad() {
+        ProfileCache cache = new ProfileCache(meterRegistry, 10, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(userId, () -> load(loads, "Learn DevOps"));
+        cache.evict(userId);
+        Optional<ProfileResponse> reloaded = cache.get(userId, () -> load(loads, "Learn Kubernetes"));
+
+        assertThat(reloaded).map(ProfileResponse::getGoalTitle).contains("Learn Kubernetes");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void loadRacingAnEvictionIsNotCached() {
+        ProfileCache cache = new ProfileCache(meterRegistry, 10, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        // The write lands while the old row is being read
+        cache.get(userId, () -> {
+            Optional<ProfileResponse> stale = load(loads, "Learn DevOps");
+            cache.evict(userId);
+            return stale;
+        });
+        Optional<ProfileResponse> next = cache.get(userId, () -> load(loads, "Learn Kubernetes"));
+
+        assertThat(next).map(ProfileResponse::getGoalTitle).contains("Learn Kubernetes");
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsDroppedWhenFull() {
+        ProfileCache cache = new ProfileCache(meterRegistry, 1, 60);
+        AtomicInteger loads = new AtomicInteger();
+        UUID otherUserId = UUID.randomUUID();
+
+        cache.get(userId, () -> load(loads, "Learn DevOps"));
+        cache.get(otherUserId, () -> load(loads, "Learn Kubernetes"));
+        cache.get(userId, () -> load(loads, "Learn DevOps"));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    private Optional<ProfileResponse> load(AtomicInteger loads, String goalTitle) {
+        loads.incrementAndGet();
+        return Optional.of(new ProfileResponse(userId, "test@test.com", "Test", "User", goalTitle,
+                List.of("Linux"), List.of("Docker"), OffsetDateTime.now()));
+    }
+}